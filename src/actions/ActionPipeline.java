@@ -0,0 +1,173 @@
+package actions;
+
+import actor.Actor;
+import actor.ActorRegistry;
+import converters.ActorInputConverter;
+import converters.MovieInputConverter;
+import converters.ShowInputConverter;
+import converters.TitleIndex;
+import converters.UserInputConverter;
+import entities.Entities;
+import entities.EntitiesSnapshot;
+import entities.SnapshotSource;
+import fileio.ActionInputData;
+import fileio.ActorInputData;
+import fileio.InputListener;
+import fileio.InputSource;
+import fileio.MovieInputData;
+import fileio.SerialInputData;
+import fileio.UserInputData;
+import user.User;
+import video.Movie;
+import video.Show;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Runs the actions while the input file is still being read.
+ * The database is converted when the first action arrives and every action is
+ * processed (and its result written) as soon as it is parsed, so the actions
+ * are never kept in memory.
+ * <p>
+ * The converted database can be saved to a snapshot, which the next runs on the
+ * same input file load instead of parsing and converting the database again.
+ */
+public final class ActionPipeline implements InputListener {
+
+    /** Attributes */
+    private final List<ActorInputData> actorsData = new ArrayList<>();
+    private final List<UserInputData> usersData = new ArrayList<>();
+    private final List<MovieInputData> moviesData = new ArrayList<>();
+    private final List<SerialInputData> serialsData = new ArrayList<>();
+
+    private final ResultSink results;
+
+    private Entities entities;
+
+    // Where the converted database is saved, null if it isn't
+    private String snapshotPath;
+    private SnapshotSource snapshotSource;
+
+    /** Constructors */
+    public ActionPipeline(ResultSink results) {
+        this.results = results;
+    }
+
+    /**
+     * Runs the actions of the input file. The database is loaded from the snapshot
+     * if it is up to date; otherwise it is converted from the input and saved to
+     * the snapshot, before the first action changes it
+     * @param inputLoader the loader of the input file
+     * @param snapshot the path of the snapshot of the input file, null for none
+     */
+    public void run(InputSource inputLoader, String snapshot) throws IOException {
+        if(snapshot != null) {
+            SnapshotSource source = SnapshotSource.of(
+                    new File(inputLoader.getInputPath()).getAbsolutePath());
+            if(EntitiesSnapshot.isUpToDate(snapshot, source)) {
+                try {
+                    entities = EntitiesSnapshot.read(snapshot);
+                } catch(IOException | RuntimeException e) {
+                    // A damaged snapshot is written again
+                    entities = null;
+                }
+                if(entities != null) {
+                    inputLoader.streamActions(this, entities.getDatabaseSize());
+                    return;
+                }
+            }
+            snapshotSource = source;
+        }
+
+        snapshotPath = snapshot;
+        inputLoader.stream(this);
+    }
+
+    /** Database */
+    @Override
+    public void onActor(ActorInputData actor) {
+        actorsData.add(actor);
+    }
+
+    @Override
+    public void onUser(UserInputData user) {
+        usersData.add(user);
+    }
+
+    @Override
+    public void onMovie(MovieInputData movie) {
+        moviesData.add(movie);
+    }
+
+    @Override
+    public void onSerial(SerialInputData serial) {
+        serialsData.add(serial);
+    }
+
+    /** Actions */
+    @Override
+    public void onAction(ActionInputData action) throws IOException {
+        if(entities == null) {
+            convert();
+            if(snapshotPath != null) {
+                EntitiesSnapshot.write(entities, snapshotSource, snapshotPath);
+            }
+        }
+        ProcessAction.process(action, entities, results);
+    }
+
+    private void convert() {
+        // One actor object for each name of the casts, completed by the actors list
+        ActorRegistry actorRegistry = new ActorRegistry();
+
+        // Movies
+        MovieInputConverter movieConverter = new MovieInputConverter();
+        movieConverter.convert(moviesData, actorRegistry);
+        List<Movie> movies = movieConverter.getObjMovies();
+
+        // Shows
+        ShowInputConverter showConverter = new ShowInputConverter();
+        showConverter.convert(serialsData, actorRegistry);
+        List<Show> shows = showConverter.getObjShows();
+
+        // Index the videos by title, for the actors, the users and the actions
+        TitleIndex titles = new TitleIndex(movies, shows);
+
+        // Actors
+        ActorInputConverter actorConverter = new ActorInputConverter();
+        actorConverter.convert(actorsData, titles, actorRegistry);
+        List<Actor> actors = actorConverter.getObjActors();
+
+        // Users
+        UserInputConverter userConverter = new UserInputConverter();
+        userConverter.convert(usersData, titles);
+        List<User> users = userConverter.getObjUsers();
+
+        // Encapsulate users, actors, movies, shows
+        entities = new Entities(actors, users, movies, shows, titles);
+
+        // The input data isn't needed anymore
+        actorsData.clear();
+        usersData.clear();
+        moviesData.clear();
+        serialsData.clear();
+    }
+
+    /** Getters */
+    // The database as the actions left it, null before the first action
+    public Entities getEntities() {
+        return entities;
+    }
+
+    /** Clear everything */
+    public void clear() {
+        actorsData.clear();
+        usersData.clear();
+        moviesData.clear();
+        serialsData.clear();
+        entities = null;
+    }
+}
@@ -0,0 +1,39 @@
+package actions;
+
+import org.json.simple.JSONObject;
+
+import java.io.BufferedWriter;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Writes every result to the output file as soon as it is added, as the elements
+ * of a JSON array, instead of keeping all of them until the end. It is the only
+ * handle on the output file.
+ */
+public final class JsonFileSink implements ResultSink {
+
+    /** Attributes */
+    private final Writer out;
+    private boolean empty = true;
+
+    /** Constructors */
+    public JsonFileSink(String path) throws IOException {
+        this.out = new BufferedWriter(new FileWriter(path));
+    }
+
+    @Override
+    public void add(JSONObject result) throws IOException {
+        out.write(empty ? '[' : ',');
+        result.writeJSONString(out);
+        empty = false;
+    }
+
+    // Writes the end of the array and closes the file
+    @Override
+    public void close() throws IOException {
+        out.write(empty ? "[]" : "]");
+        out.close();
+    }
+}
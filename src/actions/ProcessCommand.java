@@ -1,20 +1,16 @@
 package actions;
 
 import entities.Entities;
+import entities.QueryCache;
 import fileio.ActionInputData;
 import common.Constants;
-import fileio.Writer;
-import org.json.simple.JSONArray;
 import user.User;
 
-import converters.UserInputConverter;
 import video.Movie;
 import video.Season;
 import video.Show;
 
 import java.io.IOException;
-import java.util.List;
-import java.util.stream.Collectors;
 
 
 public final class ProcessCommand {
@@ -22,64 +18,61 @@ public final class ProcessCommand {
     private ProcessCommand()  {}
 
     public static void command(ActionInputData action, Entities entities,
-                               JSONArray jsonArrayOutput, Writer fileWriter) throws IOException {
+                               ResultSink results) throws IOException {
         switch(action.getType()) {
-            case Constants.FAVORITE -> favorite(action, entities, jsonArrayOutput, fileWriter);
-            case Constants.VIEW -> view(action, entities, jsonArrayOutput, fileWriter);
-            case Constants.RATING -> rating(action, entities, jsonArrayOutput, fileWriter);
+            case Constants.FAVORITE -> favorite(action, entities, results);
+            case Constants.VIEW -> view(action, entities, results);
+            case Constants.RATING -> rating(action, entities, results);
             default -> throw new IllegalStateException("Unexpected value: " + action.getType());
         }
     }
 
 
     /** FAVORITE Command */
-    public static List<User> filterUsersByName(String username, List<User> users) {
-        // Is the username unique?
-        // Filter users using streams
-        return users.stream().
-                filter(user -> user.getUsername().equals(username)).
-                collect(Collectors.toList());
-    }
-
     public static void favorite(ActionInputData action, Entities entities,
-                                JSONArray jsonArrayOutput, Writer fileWriter) throws IOException {
+                                ResultSink results) throws IOException {
 
         String username = action.getUsername();
-        List<User> usersFilteredByName = filterUsersByName(username, entities.getUsers());
-        User userWanted = usersFilteredByName.get(0); // Supposing that the username is unique
+        User userWanted = entities.getUser(username); // Supposing that the username is unique
 
         String videoTitle = action.getTitle();
 
         // For movie
         boolean actionDone = false;
-        Movie movie = UserInputConverter.filterMoviesByTitle(videoTitle, entities.getMovies());
-        if(userWanted.getMoviesHistory().containsKey(movie) &&
+        Movie movie = entities.getTitleIndex().getMovie(videoTitle);
+        if(userWanted.hasViewed(movie) &&
             !(userWanted.getMoviesFavorite().contains(movie))) {
 
             userWanted.getMoviesFavorite().add(movie);
+            movie.addFavorite();
+            entities.getMovieIndexes().updateFavorites(movie);
+            entities.getQueryCache().bump(QueryCache.Change.FAVORITES);
             actionDone = true;
         }
 
         // For show
-        Show show = UserInputConverter.filterShowsByTitle(videoTitle, entities.getShows());
-        if(userWanted.getShowsHistory().containsKey(show) &&
+        Show show = entities.getTitleIndex().getShow(videoTitle);
+        if(userWanted.hasViewed(show) &&
                 !(userWanted.getShowsFavorite().contains(show))) {
 
             userWanted.getShowsFavorite().add(show);
+            show.addFavorite();
+            entities.getShowIndexes().updateFavorites(show);
+            entities.getQueryCache().bump(QueryCache.Change.FAVORITES);
             actionDone = true;
         }
 
         // Print to output
         if(actionDone) {
-            jsonArrayOutput.add(fileWriter.writeFile(
-                    action.getActionId(), "", "success -> " + videoTitle + " was added as favourite"));
+            results.add(
+                    action.getActionId(), "success -> " + videoTitle + " was added as favourite");
         } else {
             if(userWanted.getMoviesFavorite().contains(movie) || userWanted.getShowsFavorite().contains(show)) {
-                jsonArrayOutput.add(fileWriter.writeFile(
-                        action.getActionId(), "", "error -> " + videoTitle + " is already in favourite list"));
+                results.add(
+                        action.getActionId(), "error -> " + videoTitle + " is already in favourite list");
             } else {
-                jsonArrayOutput.add(fileWriter.writeFile(
-                        action.getActionId(), "", "error -> " + videoTitle + " is not seen"));
+                results.add(
+                        action.getActionId(), "error -> " + videoTitle + " is not seen");
             }
 
         }
@@ -88,59 +81,57 @@ public final class ProcessCommand {
 
     /** VIEW Command */
     public static void view(ActionInputData action, Entities entities,
-                            JSONArray jsonArrayOutput, Writer fileWriter) throws IOException {
+                            ResultSink results) throws IOException {
 
         String username = action.getUsername();
-        List<User> usersFilteredByName = filterUsersByName(username, entities.getUsers());
-        User userWanted = usersFilteredByName.get(0); // Supposing that the username is unique
+        User userWanted = entities.getUser(username); // Supposing that the username is unique
 
         String videoTitle = action.getTitle();
 
         // Check if the historyMap contains the videoTitle: Increment the number of views
 
         // For movie
-        Movie movie = UserInputConverter.filterMoviesByTitle(videoTitle, entities.getMovies());
+        Movie movie = entities.getTitleIndex().getMovie(videoTitle);
         if(movie != null) {
-            if(userWanted.getMoviesHistory().containsKey(movie)) {
-                userWanted.getMoviesHistory().put(movie, userWanted.getMoviesHistory().get(movie) + 1);
-            } else {
-                userWanted.getMoviesHistory().put(movie, 1); // Mark the movie as viewed (for the first time)
-            }
-
-            jsonArrayOutput.add(fileWriter.writeFile(
+            // Marks the movie as viewed, for the first time if it wasn't in the history
+            int totalViews = userWanted.addView(movie);
+            movie.addViews(1);
+            entities.getMovieIndexes().updateViews(movie);
+            entities.getGenreIndex().addViews(movie, 1);
+            entities.getQueryCache().bump(QueryCache.Change.VIEWS);
+
+            results.add(
                     action.getActionId(),
-                    "",
                     "success -> " + movie.getTitle() +
                             " was viewed with total views of " +
-                            userWanted.getMoviesHistory().get(movie)));
+                            totalViews);
         }
 
         // For show
-        Show show = UserInputConverter.filterShowsByTitle(videoTitle, entities.getShows());
+        Show show = entities.getTitleIndex().getShow(videoTitle);
         if(show != null) {
-            if(userWanted.getShowsHistory().containsKey(show)) {
-                userWanted.getShowsHistory().put(show, userWanted.getShowsHistory().get(show) + 1);
-            } else {
-                userWanted.getShowsHistory().put(show, 1); // Mark the show as viewed (for the first time)
-            }
-
-            jsonArrayOutput.add(fileWriter.writeFile(
+            // Marks the show as viewed, for the first time if it wasn't in the history
+            int totalViews = userWanted.addView(show);
+            show.addViews(1);
+            entities.getShowIndexes().updateViews(show);
+            entities.getGenreIndex().addViews(show, 1);
+            entities.getQueryCache().bump(QueryCache.Change.VIEWS);
+
+            results.add(
                     action.getActionId(),
-                    "",
                     "success -> " + show.getTitle() +
                             " was viewed with total views of " +
-                            userWanted.getShowsHistory().get(show)));
+                            totalViews);
         }
     }
 
 
     /** RATING Command */
     public static void rating(ActionInputData action, Entities entities,
-                              JSONArray jsonArrayOutput, Writer fileWriter) throws IOException {
+                              ResultSink results) throws IOException {
 
         String username = action.getUsername();
-        List<User> usersFilteredByName = filterUsersByName(username, entities.getUsers());
-        User userWanted = usersFilteredByName.get(0); // Supposing that the username is unique
+        User userWanted = entities.getUser(username); // Supposing that the username is unique
 
         String videoTitle = action.getTitle();
 
@@ -149,13 +140,16 @@ public final class ProcessCommand {
         // For movie
         boolean actionDone = false;
         boolean ratedIt = false;
-        Movie movie = UserInputConverter.filterMoviesByTitle(videoTitle, entities.getMovies());
+        Movie movie = entities.getTitleIndex().getMovie(videoTitle);
         if(movie != null) {
             // If the user had viewed the movie AND didn't rate it yet
-            if(userWanted.getMoviesHistory().containsKey(movie)) {
-                if(!(userWanted.getMoviesRating().containsKey(movie))) {
+            if(userWanted.hasViewed(movie)) {
+                if(!userWanted.hasRated(movie)) {
 
                     movie.addRating(action.getGrade()); // Mark the grade on movie rating list
+                    entities.getActorIndex().markRated(movie, action.getGrade()); // The averages of its actors changed
+                    entities.getMovieIndexes().updateRating(movie);
+                    entities.getQueryCache().bump(QueryCache.Change.RATINGS);
                     userWanted.addMovieRating(movie, action.getGrade()); // Mark the grade on user movie rating list
                     actionDone = true;
                 } else {
@@ -165,13 +159,16 @@ public final class ProcessCommand {
         }
 
         // For show
-        Show show = UserInputConverter.filterShowsByTitle(videoTitle, entities.getShows());
+        Show show = entities.getTitleIndex().getShow(videoTitle);
         if(show != null) {
             // If the user had viewed the show AND didn't rate that specific season yet
             Season season = show.getSeasonFromIndex(action.getSeasonNumber());
-            if(userWanted.getShowsHistory().containsKey(show)) {
-                if(!(userWanted.getSeasonRating().containsKey(season))) {
+            if(userWanted.hasViewed(show)) {
+                if(!userWanted.hasRated(season)) {
                     season.addRating(action.getGrade());
+                    entities.getActorIndex().markRated(show, action.getGrade());
+                    entities.getShowIndexes().updateRating(show);
+                    entities.getQueryCache().bump(QueryCache.Change.RATINGS);
                     userWanted.addSeasonRating(season, action.getGrade());
                     actionDone = true;
                 } else {
@@ -182,23 +179,20 @@ public final class ProcessCommand {
         }
 
         if(actionDone) {
-            jsonArrayOutput.add(fileWriter.writeFile(
+            results.add(
                     action.getActionId(),
-                    "",
                     "success -> " + videoTitle +
                             " was rated with " + action.getGrade()
-                            + " by " + username));
+                            + " by " + username);
         } else {
             if(ratedIt) {
-                jsonArrayOutput.add(fileWriter.writeFile(
+                results.add(
                         action.getActionId(),
-                        "",
-                        "error -> " + videoTitle + " has been already rated"));
+                        "error -> " + videoTitle + " has been already rated");
             } else {
-                jsonArrayOutput.add(fileWriter.writeFile(
+                results.add(
                         action.getActionId(),
-                        "",
-                        "error -> " + videoTitle + " is not seen"));
+                        "error -> " + videoTitle + " is not seen");
             }
         }
     }
@@ -2,20 +2,25 @@ package actions;
 
 import actor.Actor;
 import common.Constants;
+import entities.ActorIndex;
 import entities.Entities;
+import entities.FilterIndex;
+import entities.MetricIndex;
+import entities.QueryCache;
+import entities.VideoIndexes;
 import fileio.ActionInputData;
-import fileio.Writer;
-import org.json.simple.JSONArray;
 import user.User;
 import video.Movie;
-import video.Season;
+import video.RatingSum;
 import video.Show;
+import video.Video;
 
-import utils.Utils;
+import utils.TopK;
 
 import java.io.IOException;
 import java.util.*;
-import java.util.regex.Pattern;
+import java.util.function.ToDoubleFunction;
+import java.util.function.ToIntFunction;
 import java.util.stream.Collectors;
 
 public final class ProcessQuery {
@@ -24,129 +29,197 @@ public final class ProcessQuery {
 
     /** Process Query */
     public static void query(ActionInputData action, Entities entities,
-                             JSONArray jsonArrayOutput, Writer fileWriter) throws IOException {
+                             ResultSink results) throws IOException {
+
+        // The same query gives the same result while the data it depends on is unchanged
+        QueryCache queryCache = entities.getQueryCache();
+        List<Object> key = queryKey(action);
+        String result = queryCache.get(key);
+        if(result != null) {
+            results.add(action.getActionId(), result);
+            return;
+        }
 
         switch(action.getObjectType()) {
             case Constants.ACTORS:
                 switch(action.getCriteria()) {
-                    case Constants.AVERAGE -> averageActors(action, entities, jsonArrayOutput, fileWriter);
-                    case Constants.AWARDS -> awardsActors(action, entities, jsonArrayOutput, fileWriter);
-                    case Constants.FILTER_DESCRIPTIONS -> filterDescriptionActors(action, entities, jsonArrayOutput, fileWriter);
+                    case Constants.AVERAGE -> result = averageActors(action, entities);
+                    case Constants.AWARDS -> result = awardsActors(action, entities);
+                    case Constants.FILTER_DESCRIPTIONS -> result = filterDescriptionActors(action, entities);
                     default -> throw new IllegalStateException("Unexpected value: " + action.getCriteria());
                 }
                 break;
             case Constants.MOVIES:
                 switch(action.getCriteria()) {
-                    case Constants.RATINGS -> ratingMovies(action, entities, jsonArrayOutput, fileWriter);
-                    case Constants.FAVORITE -> favoriteMovies(action, entities, jsonArrayOutput, fileWriter);
-                    case Constants.LONGEST -> longestMovies(action, entities, jsonArrayOutput, fileWriter);
-                    case Constants.MOST_VIEWED -> mostViewedMovies(action, entities, jsonArrayOutput, fileWriter);
+                    case Constants.RATINGS -> result = ratingMovies(action, entities);
+                    case Constants.FAVORITE -> result = favoriteMovies(action, entities);
+                    case Constants.LONGEST -> result = longestMovies(action, entities);
+                    case Constants.MOST_VIEWED -> result = mostViewedMovies(action, entities);
                     default -> throw new IllegalStateException("Unexpected value: " + action.getCriteria());
                 }
                 break;
             case Constants.SHOWS:
                 switch(action.getCriteria()) {
-                    case Constants.RATINGS -> ratingShows(action, entities, jsonArrayOutput, fileWriter);
-                    case Constants.FAVORITE -> favoriteShows(action, entities, jsonArrayOutput, fileWriter);
-                    case Constants.LONGEST -> longestShows(action, entities, jsonArrayOutput, fileWriter);
-                    case Constants.MOST_VIEWED -> mostViewedShows(action, entities, jsonArrayOutput, fileWriter);
+                    case Constants.RATINGS -> result = ratingShows(action, entities);
+                    case Constants.FAVORITE -> result = favoriteShows(action, entities);
+                    case Constants.LONGEST -> result = longestShows(action, entities);
+                    case Constants.MOST_VIEWED -> result = mostViewedShows(action, entities);
                     default -> throw new IllegalStateException("Unexpected value: " + action.getCriteria());
                 }
                 break;
             case Constants.USERS:
                 switch(action.getCriteria()) {
-                    case Constants.NUM_RATINGS -> ratingUsers(action, entities, jsonArrayOutput, fileWriter);
+                    case Constants.NUM_RATINGS -> result = ratingUsers(action, entities);
                     default -> throw new IllegalStateException("Unexpected value: " + action.getCriteria());
                 }
                 break;
             default:
                 throw new IllegalStateException("Unexpected value: " + action.getObjectType());
         }
-    }
 
-    /** Actors */
-    // We need to re-compute the averageRating for each actor every time we use the averageActors method
-    public static void computeAverageRatingActors(List<Actor> actors) {
-        for(Actor actor: actors) {
-            double averageRating;
-
-            // Compute the movieRating
-            double sumOfMovieRatings = 0.0;
-            int numberOfMovieRatings = 0;
-            double averageOfMovieRatings = 0.0;
-
-            for(Movie moviePlayed: actor.getMoviesPlayed()) {
-                List<Double> movieRatings = moviePlayed.getRatings();
-                for(Double movieRating: movieRatings) {
-                    if(movieRating != 0) {
-                        numberOfMovieRatings++;
-                        sumOfMovieRatings += movieRating;
-                    }
-                }
-            }
+        queryCache.put(key, result, dependsOn(action.getCriteria()));
+        results.add(action.getActionId(), result);
+    }
 
-            if(numberOfMovieRatings != 0) {
-                averageOfMovieRatings = sumOfMovieRatings / numberOfMovieRatings;
-            }
+    // The filters are kept in a fixed order, the words and awards are sorted: they are all required
+    private static List<Object> queryKey(ActionInputData action) {
+        List<List<String>> filters = action.getFilters();
+        return Arrays.asList(action.getObjectType(), action.getCriteria(), action.getSortType(),
+                action.getNumber(), filters.get(0), filters.get(1),
+                sorted(filters.get(2)), sorted(filters.get(3)));
+    }
 
+    private static List<String> sorted(List<String> values) {
+        if(values == null) {
+            return null;
+        }
+        List<String> sortedValues = new ArrayList<>(values);
+        sortedValues.sort(Comparator.nullsFirst(Comparator.naturalOrder()));
+        return sortedValues;
+    }
 
-            // Compute the showRating
-            double sumOfSeasonRatings = 0.0;
-            int numberOfSeasonRatings = 0;
-            double averageOfShowRatings = 0.0;
+    // The change made by the commands that makes the results of the criteria out of date
+    private static QueryCache.Change dependsOn(String criteria) {
+        return switch(criteria) {
+            case Constants.AVERAGE, Constants.RATINGS, Constants.NUM_RATINGS -> QueryCache.Change.RATINGS;
+            case Constants.FAVORITE -> QueryCache.Change.FAVORITES;
+            case Constants.MOST_VIEWED -> QueryCache.Change.VIEWS;
+            default -> null; // The durations, awards and descriptions never change
+        };
+    }
 
-            for(Show showPlayed: actor.getShowsPlayed()) {
-                for(Season season: showPlayed.getSeasons()) {
-                    List<Double> seasonRatings = season.getRatings();
-                    for(Double seasonRating: seasonRatings) {
-                        sumOfSeasonRatings += seasonRating;
-                    }
-                }
-                numberOfSeasonRatings = showPlayed.getNumberOfSeasons();
-            }
-            if(numberOfSeasonRatings != 0) {
-                averageOfShowRatings = sumOfSeasonRatings / numberOfSeasonRatings;
-            }
+    // Order of a sort by name followed by a stable sort by value, both ASC or both DESC:
+    // the value, then the collation rank of the name
+    private static <T> Comparator<T> rankOrder(String sortType, ToDoubleFunction<T> value,
+                                               ToIntFunction<T> nameRank) {
+        if(!sortType.equals(Constants.ASC) && !sortType.equals(Constants.DESC)) {
+            return (o1, o2) -> 0; // Not sorted
+        }
+        boolean descending = sortType.equals(Constants.DESC);
+        return (o1, o2) -> {
+            int result = Double.compare(value.applyAsDouble(o1), value.applyAsDouble(o2));
+            if(result == 0) {
+                result = Integer.compare(nameRank.applyAsInt(o1), nameRank.applyAsInt(o2));
+            }
+            return descending ? -result : result;
+        };
+    }
 
+    // The first N videos of the index that pass the filters, in the order of a sort by title
+    // followed by a stable sort by value (ASC or DESC); in the order of the list otherwise
+    private static <T extends Video> List<T> firstRanked(ActionInputData action, List<T> videos,
+                                                         FilterIndex filters, MetricIndex<T> index) {
+        String year =  action.getFilters().get(0).get(0);
+        String genre =  action.getFilters().get(1).get(0);
+        String sortType = action.getSortType();
 
-            // Compute the final average rating for that actor
-            if(numberOfMovieRatings == 0 && numberOfSeasonRatings == 0) {
-                averageRating = 0.0;
-            } else if(numberOfMovieRatings == 0) {
-                averageRating = averageOfShowRatings;
-            } else if(numberOfSeasonRatings == 0) {
-                averageRating = averageOfMovieRatings;
-            } else {
-                averageRating = (averageOfMovieRatings + averageOfShowRatings) / 2.0;
+        if(year == null && genre == null) {
+            // Without filters, only the first videos of the index are walked
+            if(sortType.equals(Constants.ASC)) {
+                return index.first(false, video -> true, action.getNumber());
+            }
+            if(sortType.equals(Constants.DESC)) {
+                return index.first(true, video -> true, action.getNumber());
             }
+            return videos.stream()
+                    .filter(index::contains)
+                    .limit(Math.max(action.getNumber(), 0))
+                    .collect(Collectors.toList());
+        }
 
-            actor.setAverageRating(averageRating);
+        // Otherwise only the videos that pass the filters are ranked
+        BitSet matching = filters.matching(year != null ? Integer.valueOf(year) : null, genre);
+        List<T> matchingVideos = new ArrayList<>(matching.cardinality());
+        for(int id = matching.nextSetBit(0); id >= 0; id = matching.nextSetBit(id + 1)) {
+            matchingVideos.add(videos.get(id)); // The id of a video is its position in the list
         }
+        return TopK.select(matchingVideos, index::contains,
+                rankOrder(sortType, index::valueOf, Video::getTitleRank),
+                action.getNumber());
     }
 
+    /** Actors */
+    // Only the actors marked dirty by a rating since the last averageActors query are re-computed
+    public static void computeAverageRatingActors(ActorIndex actorIndex) {
+        for(int i = 0; i < actorIndex.getNumberOfDirtyActors(); ++i) {
+            computeAverageRating(actorIndex.getDirtyActor(i), actorIndex);
+        }
+        actorIndex.clearDirtyActors();
+    }
 
-    public static void averageActors(ActionInputData action, Entities entities,
-                                     JSONArray jsonArrayOutput, Writer fileWriter) throws IOException {
+    private static void computeAverageRating(Actor actor, ActorIndex actorIndex) {
+        double averageRating;
 
-        List<Actor> actors = entities.getActors();
+        // Compute the movieRating, from the ratings other than 0
+        RatingSum movieRatings = actorIndex.getMovieRatings(actor);
+        int numberOfMovieRatings = movieRatings.getNonZeroCount();
+        double averageOfMovieRatings = 0.0;
+        if(numberOfMovieRatings != 0) {
+            averageOfMovieRatings = movieRatings.getSum() / numberOfMovieRatings;
+        }
 
-        computeAverageRatingActors(actors);
 
-        List<Actor> sortedActorsByRating = new ArrayList<>(actors);
+        // Compute the showRating: the sum over the seasons of the last show
+        List<Show> showsPlayed = actor.getShowsPlayed();
+        int numberOfSeasonRatings = 0;
+        double averageOfShowRatings = 0.0;
+        if(showsPlayed != null && !showsPlayed.isEmpty()) {
+            numberOfSeasonRatings = showsPlayed.get(showsPlayed.size() - 1).getNumberOfSeasons();
+        }
+        if(numberOfSeasonRatings != 0) {
+            averageOfShowRatings = actorIndex.getSeasonRatings(actor).getSum()
+                    / numberOfSeasonRatings;
+        }
 
-        String sortType = action.getSortType();
 
-        if(sortType.equals(Constants.ASC)) {
-            sortedActorsByRating.sort((Actor a1, Actor a2) -> a1.getName().compareTo(a2.getName()));
-            sortedActorsByRating.sort((Actor a1, Actor a2) -> a1.getAverageRating().compareTo(a2.getAverageRating()));
+        // Compute the final average rating for that actor
+        if(numberOfMovieRatings == 0 && numberOfSeasonRatings == 0) {
+            averageRating = 0.0;
+        } else if(numberOfMovieRatings == 0) {
+            averageRating = averageOfShowRatings;
+        } else if(numberOfSeasonRatings == 0) {
+            averageRating = averageOfMovieRatings;
+        } else {
+            averageRating = (averageOfMovieRatings + averageOfShowRatings) / 2.0;
         }
 
-        if(sortType.equals(Constants.DESC)) {
-            sortedActorsByRating.sort((Actor a1, Actor a2) -> a2.getName().compareTo(a1.getName()));
-            sortedActorsByRating.sort((Actor a1, Actor a2) -> a2.getAverageRating().compareTo(a1.getAverageRating()));
-        }
+        actor.setAverageRating(averageRating);
+    }
+
 
-        sortedActorsByRating.removeIf(actor -> actor.getAverageRating().equals(0.0));
+    public static String averageActors(ActionInputData action, Entities entities) {
+
+        List<Actor> actors = entities.getActors();
+
+        computeAverageRatingActors(entities.getActorIndex());
+
+        String sortType = action.getSortType();
+
+        // The first N actors with ratings, in the order of a sort by name followed by a stable sort by rating
+        List<Actor> sortedActorsByRating = TopK.select(actors,
+                actor -> !actor.getAverageRating().equals(0.0),
+                rankOrder(sortType, Actor::getAverageRating, Actor::getNameRank),
+                action.getNumber());
 
         StringBuilder actorsListString = new StringBuilder();
         for(int i = 0; i < action.getNumber() && i < sortedActorsByRating.size(); ++i) {
@@ -157,116 +230,60 @@ public final class ProcessQuery {
                 actorsListString.append(sortedActorsByRating.get(i).getName());
         }
 
-        jsonArrayOutput.add(fileWriter.writeFile(
-                action.getActionId(),
-                "",
-                "Query result: [" + actorsListString.toString() + "]"));
+        return "Query result: [" + actorsListString.toString() + "]";
 
     }
 
 
-    public static void awardsActors(ActionInputData action, Entities entities,
-                                    JSONArray jsonArrayOutput, Writer fileWriter) throws IOException {
-
-        List<Actor> actors = entities.getActors();
+    public static String awardsActors(ActionInputData action, Entities entities) {
 
         List<String> awards = action.getFilters().get(3);
         String sortType = action.getSortType();
 
-        Map<Actor, Integer> filteredActorsByAwards = new HashMap<>();
-        for(Actor actor: actors) {
-            boolean hasAllAwards = true;
-            int numberOfAwards = 0;
-
-            // Check for all awards
-            for(String award: awards) {
-                if(!actor.getAwards().containsKey(Utils.stringToAwards(award))) {
-                    hasAllAwards = false;
-                    break;
-                }
-            }
-            numberOfAwards = actor.getNumberOfAllAwards();
-
-            if(hasAllAwards) {
-                filteredActorsByAwards.put(actor, numberOfAwards);
-            }
+        // Actors with all the awards: the AND of the bitmaps of the awards
+        BitSet withAllAwards = entities.getAwardIndex().matching(awards);
+        List<Actor> filteredActors = new ArrayList<>(withAllAwards.cardinality());
+        for(int id = withAllAwards.nextSetBit(0); id >= 0; id = withAllAwards.nextSetBit(id + 1)) {
+            filteredActors.add(entities.getActor(id));
         }
 
-        // Sort using lambda (comparator)
-        TreeMap<Actor, Integer> treeMap = new TreeMap<>((o1, o2) -> {
-            if(sortType.equals(Constants.DESC)) {
-                if(o1.getNumberOfAllAwards() < o2.getNumberOfAllAwards()) {
-                    return 1;
-                }
-
-                if(o1.getNumberOfAllAwards() > o2.getNumberOfAllAwards()) {
-                    return -1;
-                }
-
-                return o2.getName().compareTo(o1.getName());
-            } else {
-                if(o1.getNumberOfAllAwards() < o2.getNumberOfAllAwards()) {
-                    return -1;
-                }
-
-                if(o1.getNumberOfAllAwards() > o2.getNumberOfAllAwards()) {
-                    return 1;
-                }
-
-                return o1.getName().compareTo(o2.getName());
-            }
-        });
-        treeMap.putAll(filteredActorsByAwards);
+        // Sort on the number of awards, then on the name (DESC, or ASC otherwise)
+        if(sortType.equals(Constants.DESC)) {
+            filteredActors.sort((Actor a1, Actor a2) -> a1.getNumberOfAllAwards() != a2.getNumberOfAllAwards()
+                    ? Integer.compare(a2.getNumberOfAllAwards(), a1.getNumberOfAllAwards())
+                    : Integer.compare(a2.getNameRank(), a1.getNameRank()));
+        } else {
+            filteredActors.sort((Actor a1, Actor a2) -> a1.getNumberOfAllAwards() != a2.getNumberOfAllAwards()
+                    ? Integer.compare(a1.getNumberOfAllAwards(), a2.getNumberOfAllAwards())
+                    : Integer.compare(a1.getNameRank(), a2.getNameRank()));
+        }
 
         StringBuilder actorsListString = new StringBuilder();
-        for(Map.Entry<Actor, Integer> entry: treeMap.entrySet()) {
+        for(Actor filteredActor: filteredActors) {
             if(actorsListString.length() > 0) {
                 actorsListString.append(", ");
             }
-            actorsListString.append(entry.getKey().getName());
+            actorsListString.append(filteredActor.getName());
         }
 
-        jsonArrayOutput.add(fileWriter.writeFile(
-                action.getActionId(),
-                "",
-                "Query result: [" + actorsListString.toString() + "]"));
+        return "Query result: [" + actorsListString.toString() + "]";
     }
 
 
-    public static void filterDescriptionActors(ActionInputData action, Entities entities,
-                                               JSONArray jsonArrayOutput, Writer fileWriter) throws IOException {
-
-        List<Actor> actors = entities.getActors();
+    public static String filterDescriptionActors(ActionInputData action, Entities entities) {
 
         List<String> filterWords = action.getFilters().get(2);
         String sortType = action.getSortType();
 
-        List<Actor> filteredActors = new ArrayList<>();
-
-        for(Actor actor: actors) {
-            boolean containsAllWords = true;
-
-            for(String word: filterWords) {
-                // Check case-insensitive && and whole-match
-                if(!Pattern.compile(".*\\b" + Pattern.quote(word) + "\\b.*", Pattern.CASE_INSENSITIVE).
-                        matcher(actor.getCareerDescription().toLowerCase())
-                        .find()) {
-                    containsAllWords = false;
-                    break;
-                }
-            }
-
-            if(containsAllWords) {
-                filteredActors.add(actor);
-            }
-        }
+        // Actors with all the words in their description (case-insensitive && whole-match)
+        List<Actor> filteredActors = entities.getDescriptionIndex().matching(filterWords);
 
         if(sortType.equals(Constants.ASC)) {
-            filteredActors.sort((Actor a1, Actor a2) -> a1.getName().compareTo(a2.getName()));
+            filteredActors.sort((Actor a1, Actor a2) -> Integer.compare(a1.getNameRank(), a2.getNameRank()));
         }
 
         if(sortType.equals(Constants.DESC)) {
-            filteredActors.sort((Actor a1, Actor a2) -> a2.getName().compareTo(a1.getName()));
+            filteredActors.sort((Actor a1, Actor a2) -> Integer.compare(a2.getNameRank(), a1.getNameRank()));
         }
 
         StringBuilder actorsListString = new StringBuilder();
@@ -277,10 +294,7 @@ public final class ProcessQuery {
             actorsListString.append(filteredActor.getName());
         }
 
-        jsonArrayOutput.add(fileWriter.writeFile(
-                action.getActionId(),
-                "",
-                "Query result: [" + actorsListString.toString() + "]"));
+        return "Query result: [" + actorsListString.toString() + "]";
 
     }
 
@@ -288,80 +302,12 @@ public final class ProcessQuery {
 
     /** Movies */
 
-    public static List<Movie> filterMoviesByTitle(String title, List<Movie> movies) {
-        return movies.stream()
-                .filter(movie -> movie.getTitle().equals(title))
-                .collect(Collectors.toList());
-    }
-
-    public static List<Movie> filterMoviesByYear(int year, List<Movie> movies) {
-        return movies.stream()
-                .filter(movie -> movie.getYear() == year)
-                .collect(Collectors.toList());
-    }
-
-    public static List<Movie> filterMoviesByGenre(String genre, List<Movie> movies) {
-        return movies.stream()
-                .filter(movie -> movie.getGenres().
-                        stream().
-                        anyMatch(g -> g.contains(genre)))
-                .collect(Collectors.toList());
-    }
-
-    public static double calculateAverageOfList(List<Double> ratings) {
-        return ratings.stream()
-                .mapToDouble(d -> d)
-                .average()
-                .orElse(0.0);
-    }
-
-    public static void ratingMovies(ActionInputData action, Entities entities,
-                                    JSONArray jsonArrayOutput, Writer fileWriter) throws IOException {
-
-        List<Movie> movies = entities.getMovies();
-
-        // Set average rating for each movie
-        for(Movie movie: movies) {
-            movie.setAverageRating(calculateAverageOfList(movie.getRatings()));
-        }
-
-        // Filters
-        String year =  action.getFilters().get(0).get(0);
-        String genre =  action.getFilters().get(1).get(0);
-
-        List<Movie> filteredMovies = new ArrayList<>(movies);
-        if(year != null && genre == null) {
-            // Filter only by year
-            filteredMovies = filterMoviesByYear(Integer.parseInt(year), movies);
-        }
-
-        if(genre != null && year == null) {
-            // Filter only by genre
-            filteredMovies = filterMoviesByGenre(genre, movies);
-        }
-
-        if(year != null && genre != null) {
-            // Filter by year and genre
-            filteredMovies = filterMoviesByYear(Integer.parseInt(year), movies);
-            filteredMovies = filterMoviesByGenre(genre, filteredMovies);
-        }
+    public static String ratingMovies(ActionInputData action, Entities entities) {
 
-
-        // Exclude movies with 0.0 averageRating
-        filteredMovies.removeIf(movie -> movie.getAverageRating().equals(0.0));
-
-
-        String sortType = action.getSortType();
-        // Sort ASC or Desc
-        if(sortType.equals(Constants.ASC)) {
-            filteredMovies.sort((Movie m1, Movie m2) -> m1.getTitle().compareTo(m2.getTitle()));
-            filteredMovies.sort((Movie m1, Movie m2) -> m1.getAverageRating().compareTo(m2.getAverageRating()));
-        }
-
-        if(sortType.equals(Constants.DESC)) {
-            filteredMovies.sort((Movie m1, Movie m2) -> m2.getTitle().compareTo(m1.getTitle()));
-            filteredMovies.sort((Movie m1, Movie m2) -> m2.getAverageRating().compareTo(m1.getAverageRating()));
-        }
+        // The first N movies with ratings that pass the filters, ranked by rating
+        VideoIndexes<Movie> indexes = entities.getMovieIndexes();
+        List<Movie> filteredMovies = firstRanked(action, entities.getMovies(), indexes.getFilters(),
+                indexes.getByRating());
 
         // List the first N movies
         StringBuilder moviesListString = new StringBuilder();
@@ -372,68 +318,16 @@ public final class ProcessQuery {
             moviesListString.append(filteredMovies.get(i).getTitle());
         }
 
-        jsonArrayOutput.add(fileWriter.writeFile(
-                action.getActionId(),
-                "",
-                "Query result: [" + moviesListString.toString() + "]"));
-    }
-
-
-    public static int countStarsForMovie(Movie movie, List<User> users) {
-        int starsCounter = 0;
-        for(User user: users) {
-            List<Movie> favoriteMovies = user.getMoviesFavorite();
-
-            if(favoriteMovies.contains(movie)) {
-                starsCounter++;
-            }
-        }
-
-        return starsCounter;
+        return "Query result: [" + moviesListString.toString() + "]";
     }
 
-    public static void favoriteMovies(ActionInputData action, Entities entities,
-                                      JSONArray jsonArrayOutput, Writer fileWriter) throws IOException {
-        List<Movie> movies = entities.getMovies();
-
-        // Filters
-        String year =  action.getFilters().get(0).get(0);
-        String genre =  action.getFilters().get(1).get(0);
-
-        List<Movie> filteredMovies = new ArrayList<>(movies);
-        if(year != null && genre == null) {
-            // Filter only by year
-            filteredMovies = filterMoviesByYear(Integer.parseInt(year), filteredMovies);
-        }
-
-        if(genre != null && year == null) {
-            // Filter only by genre
-            filteredMovies = filterMoviesByGenre(genre, filteredMovies);
-        }
-
-        if(year != null && genre != null) {
-            // Filter by year and genre
-            filteredMovies = filterMoviesByYear(Integer.parseInt(year), filteredMovies);
-            filteredMovies = filterMoviesByGenre(genre, filteredMovies);
-        }
-
-
-        // For each movie, compute and set the number of stars from users (favoriteCount)
-        for(Movie movie: movies) {
-            movie.setFavoriteCount(countStarsForMovie(movie, entities.getUsers()));
-        }
 
-        String sortType = action.getSortType();
-        // Sort ASC or Desc
-        if(sortType.equals(Constants.ASC)) {
-            filteredMovies.sort((Movie m1, Movie m2) -> m1.getTitle().compareTo(m2.getTitle()));
-            filteredMovies.sort((Movie m1, Movie m2) -> m1.getFavoriteCount().compareTo(m2.getFavoriteCount()));
-        }
+    public static String favoriteMovies(ActionInputData action, Entities entities) {
 
-        if(sortType.equals(Constants.DESC)) {
-            filteredMovies.sort((Movie m1, Movie m2) -> m2.getTitle().compareTo(m1.getTitle()));
-            filteredMovies.sort((Movie m1, Movie m2) -> m2.getFavoriteCount().compareTo(m1.getFavoriteCount()));
-        }
+        // The first N movies that pass the filters, ranked by favorites
+        VideoIndexes<Movie> indexes = entities.getMovieIndexes();
+        List<Movie> filteredMovies = firstRanked(action, entities.getMovies(), indexes.getFilters(),
+                indexes.getByFavorites());
 
         // List the first N movies
         StringBuilder moviesListString = new StringBuilder();
@@ -448,51 +342,16 @@ public final class ProcessQuery {
             moviesListString.append(filteredMovies.get(i).getTitle());
         }
 
-        jsonArrayOutput.add(fileWriter.writeFile(
-                action.getActionId(),
-                "",
-                "Query result: [" + moviesListString.toString() + "]"));
+        return "Query result: [" + moviesListString.toString() + "]";
     }
 
 
-    public static void longestMovies(ActionInputData action, Entities entities,
-                                     JSONArray jsonArrayOutput, Writer fileWriter) throws IOException {
-
-        List<Movie> movies = entities.getMovies();
-
-        // Filters
-        String year =  action.getFilters().get(0).get(0);
-        String genre =  action.getFilters().get(1).get(0);
-
-        List<Movie> filteredMovies = new ArrayList<>(movies);
-        if(year != null && genre == null) {
-            // Filter only by year
-            filteredMovies = filterMoviesByYear(Integer.parseInt(year), filteredMovies);
-        }
-
-        if(genre != null && year == null) {
-            // Filter only by genre
-            filteredMovies = filterMoviesByGenre(genre, filteredMovies);
-        }
-
-        if(year != null && genre != null) {
-            // Filter by year and genre
-            filteredMovies = filterMoviesByYear(Integer.parseInt(year), filteredMovies);
-            filteredMovies = filterMoviesByGenre(genre, filteredMovies);
-        }
-
-
-        String sortType = action.getSortType();
-        // Sort ASC or Desc
-        if(sortType.equals(Constants.ASC)) {
-            filteredMovies.sort((Movie m1, Movie m2) -> m1.getTitle().compareTo(m2.getTitle()));
-            filteredMovies.sort((Movie m1, Movie m2) -> m1.getDuration().compareTo(m2.getDuration()));
-        }
+    public static String longestMovies(ActionInputData action, Entities entities) {
 
-        if(sortType.equals(Constants.DESC)) {
-            filteredMovies.sort((Movie m1, Movie m2) -> m2.getTitle().compareTo(m1.getTitle()));
-            filteredMovies.sort((Movie m1, Movie m2) -> m2.getDuration().compareTo(m1.getDuration()));
-        }
+        // The first N movies that pass the filters, ranked by duration
+        VideoIndexes<Movie> indexes = entities.getMovieIndexes();
+        List<Movie> filteredMovies = firstRanked(action, entities.getMovies(), indexes.getFilters(),
+                indexes.getByDuration());
 
         // List the first N movies
         StringBuilder moviesListString = new StringBuilder();
@@ -503,64 +362,16 @@ public final class ProcessQuery {
             moviesListString.append(filteredMovies.get(i).getTitle());
         }
 
-        jsonArrayOutput.add(fileWriter.writeFile(
-                action.getActionId(),
-                "",
-                "Query result: [" + moviesListString.toString() + "]"));
+        return "Query result: [" + moviesListString.toString() + "]";
     }
 
 
-    public static void mostViewedMovies(ActionInputData action, Entities entities,
-                                        JSONArray jsonArrayOutput, Writer fileWriter) throws IOException {
-
-        List<Movie> movies = entities.getMovies();
-
-        // Filters
-        String year =  action.getFilters().get(0).get(0);
-        String genre =  action.getFilters().get(1).get(0);
-
-        List<Movie> filteredMovies = new ArrayList<>(movies);
-        if(year != null && genre == null) {
-            // Filter only by year
-            filteredMovies = filterMoviesByYear(Integer.parseInt(year), filteredMovies);
-        }
-
-        if(genre != null && year == null) {
-            // Filter only by genre
-            filteredMovies = filterMoviesByGenre(genre, filteredMovies);
-        }
+    public static String mostViewedMovies(ActionInputData action, Entities entities) {
 
-        if(year != null && genre != null) {
-            // Filter by year and genre
-            filteredMovies = filterMoviesByYear(Integer.parseInt(year), filteredMovies);
-            filteredMovies = filterMoviesByGenre(genre, filteredMovies);
-        }
-
-        // Set number of views for each movie
-        List<User> users = entities.getUsers();
-        for(Movie movie: filteredMovies) {
-            int numberOfViews = 0;
-            // Iterate through each user map of historyMovies <Movie, Integer>
-            for(User user: users) {
-                if(user.getMoviesHistory().containsKey(movie)) {
-                    numberOfViews += user.getMoviesHistory().get(movie);
-                }
-            }
-
-            movie.setNumberOfViews(numberOfViews);
-        }
-
-        String sortType = action.getSortType();
-        // Sort ASC or Desc
-        if(sortType.equals(Constants.ASC)) {
-            filteredMovies.sort((Movie m1, Movie m2) -> m1.getTitle().compareTo(m2.getTitle()));
-            filteredMovies.sort((Movie m1, Movie m2) -> m1.getNumberOfViews().compareTo(m2.getNumberOfViews()));
-        }
-
-        if(sortType.equals(Constants.DESC)) {
-            filteredMovies.sort((Movie m1, Movie m2) -> m2.getTitle().compareTo(m1.getTitle()));
-            filteredMovies.sort((Movie m1, Movie m2) -> m2.getNumberOfViews().compareTo(m1.getNumberOfViews()));
-        }
+        // The first N movies that pass the filters, ranked by views
+        VideoIndexes<Movie> indexes = entities.getMovieIndexes();
+        List<Movie> filteredMovies = firstRanked(action, entities.getMovies(), indexes.getFilters(),
+                indexes.getByViews());
 
         // List the first N movies
         StringBuilder moviesListString = new StringBuilder();
@@ -575,103 +386,18 @@ public final class ProcessQuery {
             moviesListString.append(filteredMovies.get(i).getTitle());
         }
 
-        jsonArrayOutput.add(fileWriter.writeFile(
-                action.getActionId(),
-                "",
-                "Query result: [" + moviesListString.toString() + "]"));
+        return "Query result: [" + moviesListString.toString() + "]";
     }
 
 
 
     /** Shows (Serials) */
-    public static List<Show> filterShowsByTitle(String title, List<Show> shows) {
-        return shows.stream()
-                .filter(show -> show.getTitle().equals(title))
-                .collect(Collectors.toList());
-    }
-
-    public static List<Show> filterShowsByYear(int year, List<Show> shows) {
-        return shows.stream()
-                .filter(show -> show.getYear() == year)
-                .collect(Collectors.toList());
-    }
-
-    public static List<Show> filterShowsByGenre(String genre, List<Show> shows) {
-        return shows.stream()
-                .filter(show -> show.getGenres().
-                        stream().
-                        anyMatch(g -> g.contains(genre)))
-                .collect(Collectors.toList());
-    }
-
-    public static void ratingShows(ActionInputData action, Entities entities,
-                                   JSONArray jsonArrayOutput, Writer fileWriter) throws IOException {
+    public static String ratingShows(ActionInputData action, Entities entities) {
 
-        List<Show> shows = entities.getShows();
-
-        // Set average rating for each show
-        List<Show> filteredShows = new ArrayList<>();
-        for(Show show: shows) {
-            List<Season> seasons = show.getSeasons();
-
-            // If at least one season has at least on rating
-            boolean hasRatings = false;
-            for(Season season: seasons) {
-                if(!season.getRatings().isEmpty()) {
-                    hasRatings = true;
-                    break;
-                }
-            }
-            // If a show doesn't have any rating, go to the next show
-            if(!hasRatings) {
-                continue;
-            }
-
-            double ratingSum = 0.0;
-            int numberOfSeasons = show.getNumberOfSeasons();
-            for(Season season: seasons) {
-                ratingSum += calculateAverageOfList(season.getRatings());
-            }
-            double averageRating = ratingSum / numberOfSeasons;
-            show.setAverageRating(averageRating);
-
-            filteredShows.add(show);
-        }
-
-        // Filters
-        String year =  action.getFilters().get(0).get(0);
-        String genre =  action.getFilters().get(1).get(0);
-
-        if(year != null && genre == null) {
-            // Filter only by year
-            filteredShows = filterShowsByYear(Integer.parseInt(year), filteredShows);
-        }
-
-        if(genre != null && year == null) {
-            // Filter only by genre
-            filteredShows = filterShowsByGenre(genre, filteredShows);
-        }
-
-        if(year != null && genre != null) {
-            // Filter by year and genre
-            filteredShows = filterShowsByYear(Integer.parseInt(year), filteredShows);
-            filteredShows = filterShowsByGenre(genre, filteredShows);
-        }
-
-        // Exclude shows with 0.0 averageRating
-        filteredShows.removeIf(show -> show.getAverageRating().equals(0.0));
-
-        String sortType = action.getSortType();
-        // Sort ASC or Desc
-        if(sortType.equals(Constants.ASC)) {
-            filteredShows.sort((Show s1, Show s2) -> s1.getTitle().compareTo(s2.getTitle()));
-            filteredShows.sort((Show s1, Show s2) -> s1.getAverageRating().compareTo(s2.getAverageRating()));
-        }
-
-        if(sortType.equals(Constants.DESC)) {
-            filteredShows.sort((Show s1, Show s2) -> s2.getTitle().compareTo(s1.getTitle()));
-            filteredShows.sort((Show s1, Show s2) -> s2.getAverageRating().compareTo(s1.getAverageRating()));
-        }
+        // The first N shows with ratings that pass the filters, ranked by rating
+        VideoIndexes<Show> indexes = entities.getShowIndexes();
+        List<Show> filteredShows = firstRanked(action, entities.getShows(), indexes.getFilters(),
+                indexes.getByRating());
 
         // List the first N shows
         StringBuilder showsListString = new StringBuilder();
@@ -682,69 +408,16 @@ public final class ProcessQuery {
             showsListString.append(filteredShows.get(i).getTitle());
         }
 
-        jsonArrayOutput.add(fileWriter.writeFile(
-                action.getActionId(),
-                "",
-                "Query result: [" + showsListString.toString() + "]"));
+        return "Query result: [" + showsListString.toString() + "]";
     }
 
 
-    public static int countStarsForShow(Show show, List<User> users) {
-        int starsCounter = 0;
-        for(User user: users) {
-            List<Show> favoriteShows = user.getShowsFavorite();
+    public static String favoriteShows(ActionInputData action, Entities entities) {
 
-            if(favoriteShows.contains(show)) {
-                starsCounter++;
-            }
-        }
-
-        return starsCounter;
-    }
-
-    public static void favoriteShows(ActionInputData action, Entities entities,
-                                     JSONArray jsonArrayOutput, Writer fileWriter) throws IOException {
-
-        List<Show> shows = entities.getShows();
-
-        // Filters
-        String year =  action.getFilters().get(0).get(0);
-        String genre =  action.getFilters().get(1).get(0);
-
-        List<Show> filteredShows = new ArrayList<>(shows);
-        if(year != null && genre == null) {
-            // Filter only by year
-            filteredShows = filterShowsByYear(Integer.parseInt(year), filteredShows);
-        }
-
-        if(genre != null && year == null) {
-            // Filter only by genre
-            filteredShows = filterShowsByGenre(genre, filteredShows);
-        }
-
-        if(year != null && genre != null) {
-            // Filter by year and genre
-            filteredShows = filterShowsByYear(Integer.parseInt(year), filteredShows);
-            filteredShows = filterShowsByGenre(genre, filteredShows);
-        }
-
-
-        // For each show, compute and set the number of stars from users (favoriteCount)
-        for(Show show: shows) {
-            show.setFavoriteCount(countStarsForShow(show, entities.getUsers()));
-        }
-
-        String sortType = action.getSortType();
-        // Sort ASC or Desc
-        if(sortType.equals(Constants.ASC)) {
-            filteredShows.sort((Show s1, Show s2) -> s1.getTitle().compareTo(s2.getTitle()));
-            filteredShows.sort((Show s1, Show s2) -> s1.getFavoriteCount().compareTo(s2.getFavoriteCount()));
-        }
-
-        if(sortType.equals(Constants.DESC)) {
-            filteredShows.sort((Show s1, Show s2) -> s2.getTitle().compareTo(s1.getTitle()));
-            filteredShows.sort((Show s1, Show s2) -> s2.getFavoriteCount().compareTo(s1.getFavoriteCount()));
-        }
+        // The first N shows that pass the filters, ranked by favorites
+        VideoIndexes<Show> indexes = entities.getShowIndexes();
+        List<Show> filteredShows = firstRanked(action, entities.getShows(), indexes.getFilters(),
+                indexes.getByFavorites());
 
         // List the first N shows
         StringBuilder showsListString = new StringBuilder();
@@ -759,62 +432,16 @@ public final class ProcessQuery {
             showsListString.append(filteredShows.get(i).getTitle());
         }
 
-        jsonArrayOutput.add(fileWriter.writeFile(
-                action.getActionId(),
-                "",
-                "Query result: [" + showsListString.toString() + "]"));
+        return "Query result: [" + showsListString.toString() + "]";
     }
 
 
-    public static void longestShows(ActionInputData action, Entities entities,
-                                    JSONArray jsonArrayOutput, Writer fileWriter) throws IOException {
-
-        List<Show> shows = entities.getShows();
-
-        // Filters
-        String year =  action.getFilters().get(0).get(0);
-        String genre =  action.getFilters().get(1).get(0);
-
-        List<Show> filteredShows = new ArrayList<>(shows);
-        if(year != null && genre == null) {
-            // Filter only by year
-            filteredShows = filterShowsByYear(Integer.parseInt(year), filteredShows);
-        }
-
-        if(genre != null && year == null) {
-            // Filter only by genre
-            filteredShows = filterShowsByGenre(genre, filteredShows);
-        }
-
-        if(year != null && genre != null) {
-            // Filter by year and genre
-            filteredShows = filterShowsByYear(Integer.parseInt(year), filteredShows);
-            filteredShows = filterShowsByGenre(genre, filteredShows);
-        }
-
-
-        // For each show, compute and set the totalDuration
-        for(Show show: shows) {
-            int totalDuration = 0;
-            List<Season> seasons = show.getSeasons();
-            for(Season season: seasons) {
-                totalDuration += season.getDuration();
-            }
-
-            show.setTotalDuration(totalDuration);
-        }
-
-        String sortType = action.getSortType();
-        // Sort ASC or Desc
-        if(sortType.equals(Constants.ASC)) {
-            filteredShows.sort((Show s1, Show s2) -> s1.getTitle().compareTo(s2.getTitle()));
-            filteredShows.sort((Show s1, Show s2) -> s1.getTotalDuration().compareTo(s2.getTotalDuration()));
-        }
+    public static String longestShows(ActionInputData action, Entities entities) {
 
-        if(sortType.equals(Constants.DESC)) {
-            filteredShows.sort((Show s1, Show s2) -> s2.getTitle().compareTo(s1.getTitle()));
-            filteredShows.sort((Show s1, Show s2) -> s2.getTotalDuration().compareTo(s1.getTotalDuration()));
-        }
+        // The first N shows that pass the filters, ranked by total duration
+        VideoIndexes<Show> indexes = entities.getShowIndexes();
+        List<Show> filteredShows = firstRanked(action, entities.getShows(), indexes.getFilters(),
+                indexes.getByDuration());
 
         // List the first N shows
         StringBuilder showsListString = new StringBuilder();
@@ -825,65 +452,16 @@ public final class ProcessQuery {
             showsListString.append(filteredShows.get(i).getTitle());
         }
 
-        jsonArrayOutput.add(fileWriter.writeFile(
-                action.getActionId(),
-                "",
-                "Query result: [" + showsListString.toString() + "]"));
+        return "Query result: [" + showsListString.toString() + "]";
     }
 
 
-    public static void mostViewedShows(ActionInputData action, Entities entities,
-                                       JSONArray jsonArrayOutput, Writer fileWriter) throws IOException {
-
-        List<Show> shows = entities.getShows();
-
-        // Filters
-        String year =  action.getFilters().get(0).get(0);
-        String genre =  action.getFilters().get(1).get(0);
-
-        List<Show> filteredShows = new ArrayList<>(shows);
-        if(year != null && genre == null) {
-            // Filter only by year
-            filteredShows = filterShowsByYear(Integer.parseInt(year), filteredShows);
-        }
-
-        if(genre != null && year == null) {
-            // Filter only by genre
-            filteredShows = filterShowsByGenre(genre, filteredShows);
-        }
-
-        if(year != null && genre != null) {
-            // Filter by year and genre
-            filteredShows = filterShowsByYear(Integer.parseInt(year), filteredShows);
-            filteredShows = filterShowsByGenre(genre, filteredShows);
-        }
-
-
-        // For each show, compute and set the numberOfViews
-        List<User> users = entities.getUsers();
-        for(Show show: shows) {
-            int numberOfViews = 0;
-            // Iterate through each user map of historyShows <Show, Integer>
-            for(User user: users) {
-                if(user.getShowsHistory().containsKey(show)) {
-                    numberOfViews += user.getShowsHistory().get(show);
-                }
-            }
-
-            show.setNumberOfViews(numberOfViews);
-        }
+    public static String mostViewedShows(ActionInputData action, Entities entities) {
 
-        String sortType = action.getSortType();
-        // Sort ASC or Desc
-        if(sortType.equals(Constants.ASC)) {
-            filteredShows.sort((Show s1, Show s2) -> s1.getTitle().compareTo(s2.getTitle()));
-            filteredShows.sort((Show s1, Show s2) -> s1.getNumberOfViews().compareTo(s2.getNumberOfViews()));
-        }
-
-        if(sortType.equals(Constants.DESC)) {
-            filteredShows.sort((Show s1, Show s2) -> s2.getTitle().compareTo(s1.getTitle()));
-            filteredShows.sort((Show s1, Show s2) -> s2.getNumberOfViews().compareTo(s1.getNumberOfViews()));
-        }
+        // The first N shows that pass the filters, ranked by views
+        VideoIndexes<Show> indexes = entities.getShowIndexes();
+        List<Show> filteredShows = firstRanked(action, entities.getShows(), indexes.getFilters(),
+                indexes.getByViews());
 
         // List the first N shows
         StringBuilder showsListString = new StringBuilder();
@@ -898,42 +476,30 @@ public final class ProcessQuery {
             showsListString.append(filteredShows.get(i).getTitle());
         }
 
-        jsonArrayOutput.add(fileWriter.writeFile(
-                action.getActionId(),
-                "",
-                "Query result: [" + showsListString.toString() + "]"));
+        return "Query result: [" + showsListString.toString() + "]";
     }
 
 
 
     /** Users */
-    public static void ratingUsers(ActionInputData action, Entities entities,
-                                   JSONArray jsonArrayOutput, Writer fileWriter) throws IOException {
+    public static String ratingUsers(ActionInputData action, Entities entities) {
 
         List<User> users = entities.getUsers();
 
-        List<User> filteredUsers = new ArrayList<>(users);
         // For each user, compute and set the numberOfRatings
-        for(User user: filteredUsers) {
+        for(User user: users) {
             int numberOfMoviesRated = user.getMoviesRating().size();
             int numberOfSeasonsRated = user.getSeasonRating().size();
             user.setNumberOfRatings(numberOfMoviesRated + numberOfSeasonsRated);
         }
 
         String sortType = action.getSortType();
-        // Sort ASC or Desc
-        if(sortType.equals(Constants.ASC)) {
-            filteredUsers.sort((User u1, User u2) -> u1.getUsername().compareTo(u2.getUsername()));
-            filteredUsers.sort((User u1, User u2) -> u1.getNumberOfRatings().compareTo(u2.getNumberOfRatings()));
-        }
-
-        if(sortType.equals(Constants.DESC)) {
-            filteredUsers.sort((User u1, User u2) -> u2.getUsername().compareTo(u1.getUsername()));
-            filteredUsers.sort((User u1, User u2) -> u2.getNumberOfRatings().compareTo(u1.getNumberOfRatings()));
-        }
-
-        // Exclude users with 0 ratings given
-        filteredUsers.removeIf(user -> user.getNumberOfRatings().equals(0));
+        // The first N users with ratings given, in the order of a sort by username
+        // followed by a stable sort by number of ratings
+        List<User> filteredUsers = TopK.select(users,
+                user -> !user.getNumberOfRatings().equals(0),
+                rankOrder(sortType, User::getNumberOfRatings, User::getUsernameRank),
+                action.getNumber());
 
         // List the first N users
         StringBuilder usersListString = new StringBuilder();
@@ -944,9 +510,6 @@ public final class ProcessQuery {
             usersListString.append(filteredUsers.get(i).getUsername());
         }
 
-        jsonArrayOutput.add(fileWriter.writeFile(
-                action.getActionId(),
-                "",
-                "Query result: [" + usersListString.toString() + "]"));
+        return "Query result: [" + usersListString.toString() + "]";
     }
 }
\ No newline at end of file
@@ -2,32 +2,28 @@ package actions;
 
 import common.Constants;
 import entities.Entities;
+import entities.GenreIndex;
 import fileio.ActionInputData;
-import fileio.Writer;
-import org.json.simple.JSONArray;
 import user.User;
 import video.Movie;
-import video.Season;
 import video.Show;
 
 import java.io.IOException;
 import java.util.*;
 
-import static actions.ProcessQuery.*;
-
 public final class ProcessRecommendation {
 
     private ProcessRecommendation() {}
 
     public static void recommendation(ActionInputData action, Entities entities,
-                                      JSONArray jsonArrayOutput, Writer fileWriter) throws IOException {
+                                      ResultSink results) throws IOException {
 
         switch(action.getType()) {
-            case Constants.STANDARD -> standard(action, entities, jsonArrayOutput, fileWriter);
-            case Constants.BEST_UNSEEN -> bestUnseen(action, entities, jsonArrayOutput, fileWriter);
-            case Constants.POPULAR -> popular(action, entities, jsonArrayOutput, fileWriter);
-            case Constants.FAVORITE -> favorite(action, entities, jsonArrayOutput, fileWriter);
-            case Constants.SEARCH -> search(action, entities, jsonArrayOutput, fileWriter);
+            case Constants.STANDARD -> standard(action, entities, results);
+            case Constants.BEST_UNSEEN -> bestUnseen(action, entities, results);
+            case Constants.POPULAR -> popular(action, entities, results);
+            case Constants.FAVORITE -> favorite(action, entities, results);
+            case Constants.SEARCH -> search(action, entities, results);
             default -> throw new IllegalStateException("Unexpected value: " + action.getType());
         }
     }
@@ -35,299 +31,152 @@ public final class ProcessRecommendation {
 
     /**  Methods for all users */
     private static void standard(ActionInputData action, Entities entities,
-                                 JSONArray jsonArrayOutput, Writer fileWriter) throws IOException {
+                                 ResultSink results) throws IOException {
 
         String usernameString = action.getUsername();
-        List<User> usersFilteredByUsername = ProcessCommand.filterUsersByName(usernameString, entities.getUsers());
-        User user = usersFilteredByUsername.get(0);
-
-        List<Movie> movies = entities.getMovies();
-        List<Show> shows = entities.getShows();
+        User user = entities.getUser(usernameString);
 
-        for(Movie movie: movies) {
-            if(!user.getMoviesHistory().containsKey(movie)) {
-                jsonArrayOutput.add(fileWriter.writeFile(
-                        action.getActionId(),
-                        "",
-                        "StandardRecommendation result: " + movie.getTitle()));
-                return;
-            }
+        // The first id not set in the bitset of the seen videos is the first unseen video
+        int movieId = user.getMoviesSeen().nextClearBit(0);
+        if(movieId < entities.getNumberOfMovies()) {
+            results.add(
+                    action.getActionId(),
+                    "StandardRecommendation result: " + entities.getMovie(movieId).getTitle());
+            return;
         }
 
-        for(Show show: shows) {
-            if(!user.getShowsHistory().containsKey(show)) {
-                jsonArrayOutput.add(fileWriter.writeFile(
-                        action.getActionId(),
-                        "",
-                        "StandardRecommendation result: " + show.getTitle()));
-                return;
-            }
+        int showId = user.getShowsSeen().nextClearBit(0);
+        if(showId < entities.getNumberOfShows()) {
+            results.add(
+                    action.getActionId(),
+                    "StandardRecommendation result: " + entities.getShow(showId).getTitle());
+            return;
         }
 
-        jsonArrayOutput.add(fileWriter.writeFile(
+        results.add(
                 action.getActionId(),
-                "",
-                "StandardRecommendation cannot be applied!"));
+                "StandardRecommendation cannot be applied!");
     }
 
     private static void bestUnseen(ActionInputData action, Entities entities,
-                                   JSONArray jsonArrayOutput, Writer fileWriter) throws IOException {
+                                   ResultSink results) throws IOException {
 
         String usernameString = action.getUsername();
-        List<User> usersFilteredByUsername = ProcessCommand.filterUsersByName(usernameString, entities.getUsers());
-        User user = usersFilteredByUsername.get(0);
-
+        User user = entities.getUser(usernameString);
 
-        List<Movie> movies = entities.getMovies();
-        List<Show> shows = entities.getShows();
 
-
-        // Set average rating for each movie
-        for(Movie movie: movies) {
-            movie.setAverageRating(calculateAverageOfList(movie.getRatings()));
+        // The best rated unseen movie; the first one in the list for equal ratings
+        Movie bestMovie = null;
+        BitSet moviesSeen = user.getMoviesSeen();
+        for(int id = moviesSeen.nextClearBit(0); id < entities.getNumberOfMovies(); id = moviesSeen.nextClearBit(id + 1)) {
+            Movie movie = entities.getMovie(id);
+            if(bestMovie == null || movie.getAverageRating() > bestMovie.getAverageRating()) {
+                bestMovie = movie;
+            }
+        }
+        if(bestMovie != null) {
+            results.add(
+                    action.getActionId(),
+                    "BestRatedUnseenRecommendation result: " + bestMovie.getTitle());
+            return;
         }
 
-        // Set average rating for each show
-        List<Show> filteredShows = new ArrayList<>();
-        for(Show show: shows) {
-            List<Season> seasons = show.getSeasons();
-
-            // If at least one season has at least on rating
-            boolean hasRatings = false;
-            for(Season season: seasons) {
-                if(!season.getRatings().isEmpty()) {
-                    hasRatings = true;
-                    break;
-                }
-            }
-            // If a show doesn't have any rating, go to the next show
-            if(!hasRatings) {
+        // The best rated unseen show, among the shows with ratings
+        Show bestShow = null;
+        double bestShowRating = 0.0;
+        BitSet showsSeen = user.getShowsSeen();
+        for(int id = showsSeen.nextClearBit(0); id < entities.getNumberOfShows(); id = showsSeen.nextClearBit(id + 1)) {
+            Show show = entities.getShow(id);
+            if(!show.hasRatings()) {
                 continue;
             }
-
-            double ratingSum = 0.0;
-            int numberOfSeasons = show.getNumberOfSeasons();
-            for(Season season: seasons) {
-                ratingSum += calculateAverageOfList(season.getRatings());
-            }
-            double averageRating = ratingSum / numberOfSeasons;
-            show.setAverageRating(averageRating);
-
-            filteredShows.add(show);
-        }
-
-        List<Movie> filteredMovies = new ArrayList<>(movies);
-
-        // Sort the videos DESC based on averageRating
-        filteredMovies.sort((Movie m1, Movie m2) -> m2.getAverageRating().compareTo(m1.getAverageRating()));
-        filteredShows.sort((Show s1, Show s2) -> s2.getAverageRating().compareTo(s1.getAverageRating()));
-
-        // Return the best_unseen video (movie/show)
-        for(Movie movie: filteredMovies) {
-            if(!user.getMoviesHistory().containsKey(movie)) {
-                jsonArrayOutput.add(fileWriter.writeFile(
-                        action.getActionId(),
-                        "",
-                        "BestRatedUnseenRecommendation result: " + movie.getTitle()));
-                return;
+            double rating = show.computeAverageRating();
+            if(bestShow == null || rating > bestShowRating) {
+                bestShow = show;
+                bestShowRating = rating;
             }
         }
-
-        for(Show show: filteredShows) {
-            if(!user.getShowsHistory().containsKey(show)) {
-                jsonArrayOutput.add(fileWriter.writeFile(
-                        action.getActionId(),
-                        "",
-                        "BestRatedUnseenRecommendation result: " + show.getTitle()));
-                return;
-            }
+        if(bestShow != null) {
+            results.add(
+                    action.getActionId(),
+                    "BestRatedUnseenRecommendation result: " + bestShow.getTitle());
+            return;
         }
 
-        jsonArrayOutput.add(fileWriter.writeFile(
+        results.add(
                 action.getActionId(),
-                "",
-                "BestRatedUnseenRecommendation cannot be applied!"));
+                "BestRatedUnseenRecommendation cannot be applied!");
     }
 
 
     /** Methods only for premium users */
     private static void popular(ActionInputData action, Entities entities,
-                                JSONArray jsonArrayOutput, Writer fileWriter) throws IOException {
+                                ResultSink results) throws IOException {
 
         String usernameString = action.getUsername();
-        List<User> users = entities.getUsers();
-        List<User> usersFilteredByUsername = ProcessCommand.filterUsersByName(usernameString, users);
-        User user = usersFilteredByUsername.get(0);
+        User user = entities.getUser(usernameString);
 
         // If the user isn't premium
         if(!user.getSubscriptionType().equals(Constants.PREMIUM)) {
-            jsonArrayOutput.add(fileWriter.writeFile(
+            results.add(
                     action.getActionId(),
-                    "",
-                    "PopularRecommendation cannot be applied!"));
+                    "PopularRecommendation cannot be applied!");
             return;
         }
 
 
-        List<Movie> movies = entities.getMovies();
-        List<Show> shows = entities.getShows();
-
-        // Compute the all-genres viewed as a string list
-        List<String> allGenres = new ArrayList<>();
-        for(Movie movie: movies) {
-            for(String genre: movie.getGenres()) {
-                if(!allGenres.contains(genre)) {
-                    allGenres.add(genre);
-                }
-            }
-        }
-        for(Show show: shows) {
-            for(String genre: show.getGenres()) {
-                if(!allGenres.contains(genre)) {
-                    allGenres.add(genre);
-                }
-            }
-        }
-
-        // For each movie, compute and set the numberOfViews
-        for(Movie movie: movies) {
-            int numberOfViews = 0;
-            // Iterate through each user map of historyMovies <Movie, Integer>
-            for(User currUser: users) {
-                if(currUser.getMoviesHistory().containsKey(movie)) {
-                    numberOfViews += currUser.getMoviesHistory().get(movie);
-                }
-            }
-
-            movie.setNumberOfViews(numberOfViews);
-        }
-
-        // For each show, compute and set the numberOfViews
-        for(Show show: shows) {
-            int numberOfViews = 0;
-            // Iterate through each user map of historyShows <Show, Integer>
-            for(User currUser: users) {
-                if(currUser.getShowsHistory().containsKey(show)) {
-                    numberOfViews += currUser.getShowsHistory().get(show);
-                }
-            }
-
-            show.setNumberOfViews(numberOfViews);
-        }
-
-        // Genre <-> Number of views in that genre
-        Map<String, Integer> genresTop = new HashMap<>();
-
-        // For each genre
-        for(String genre: allGenres) {
-            // Movies
-            for(Movie movie: movies) {
-                if(movie.getGenres().contains(genre)) {
-                    if(!genresTop.containsKey(genre)) {
-                        if(movie.getNumberOfViews() == null) {
-                            genresTop.put(genre, 0);
-                        } else {
-                            genresTop.put(genre, movie.getNumberOfViews());
-                        }
-                    } else {
-                        if(movie.getNumberOfViews() == null) {
-                            genresTop.put(genre, genresTop.get(genre));
-                        } else {
-                            genresTop.put(genre, genresTop.get(genre) + movie.getNumberOfViews());
-                        }
-                    }
-                }
-            }
-
-            // Shows
-            for(Show show: shows) {
-                if(show.getGenres().contains(genre)) {
-                    if(!genresTop.containsKey(genre)) {
-                        if(show.getNumberOfViews() == null) {
-                            genresTop.put(genre, 0);
-                        } else {
-                            genresTop.put(genre, show.getNumberOfViews());
-                        }
-                    } else {
-                        if(show.getNumberOfViews() == null) {
-                            genresTop.put(genre, genresTop.get(genre));
-                        } else {
-                            genresTop.put(genre, genresTop.get(genre) + show.getNumberOfViews());
-                        }
-                    }
-                }
-            }
-        }
-
-        // Sort genresTop DESC by value
-        Map<String, Integer> sortedGenresTop = new LinkedHashMap<>();
-        genresTop.entrySet()
-                .stream()
-                .sorted(Map.Entry.comparingByValue(Comparator.reverseOrder()))
-                .forEachOrdered(genre -> sortedGenresTop.put(genre.getKey(), genre.getValue()));
-
-
-        for(var entry: sortedGenresTop.entrySet()) {
-            String genre = entry.getKey();
-
+        // The genres from the most viewed one, with their videos in the order of the lists
+        GenreIndex genreIndex = entities.getGenreIndex();
+        for(int genre: genreIndex.getGenresByViews()) {
             // Check for movies
-            for(Movie movie: movies) {
-                if(movie.getGenres().contains(genre) && !user.getMoviesHistory().containsKey(movie)) {
-                    jsonArrayOutput.add(fileWriter.writeFile(
-                            action.getActionId(),
-                            "",
-                            "PopularRecommendation result: " + movie.getTitle()));
-                    return;
-                }
+            int movieId = firstUnseen(genreIndex.getMovies(genre), user.getMoviesSeen());
+            if(movieId >= 0) {
+                results.add(
+                        action.getActionId(),
+                        "PopularRecommendation result: " + entities.getMovie(movieId).getTitle());
+                return;
             }
 
             // Check for shows
-            for(Show show: shows) {
-                if(show.getGenres().contains(genre) && !user.getShowsHistory().containsKey(show)) {
-                    jsonArrayOutput.add(fileWriter.writeFile(
-                            action.getActionId(),
-                            "",
-                            "PopularRecommendation result: " + show.getTitle()));
-                    return;
-                }
+            int showId = firstUnseen(genreIndex.getShows(genre), user.getShowsSeen());
+            if(showId >= 0) {
+                results.add(
+                        action.getActionId(),
+                        "PopularRecommendation result: " + entities.getShow(showId).getTitle());
+                return;
             }
         }
 
-        jsonArrayOutput.add(fileWriter.writeFile(
+        results.add(
                 action.getActionId(),
-                "",
-                "PopularRecommendation cannot be applied!"));
+                "PopularRecommendation cannot be applied!");
+    }
+
+    // The first id of the videos that is not seen, or -1: (videos AND NOT seen), a word at a time
+    private static int firstUnseen(BitSet videos, BitSet seen) {
+        BitSet unseen = (BitSet) videos.clone();
+        unseen.andNot(seen);
+        return unseen.nextSetBit(0);
     }
 
     private static void favorite(ActionInputData action, Entities entities,
-                                 JSONArray jsonArrayOutput, Writer fileWriter) throws IOException {
+                                 ResultSink results) throws IOException {
 
         String usernameString = action.getUsername();
-        List<User> users = entities.getUsers();
-        List<User> usersFilteredByUsername = ProcessCommand.filterUsersByName(usernameString, users);
-        User user = usersFilteredByUsername.get(0);
+        User user = entities.getUser(usernameString);
 
         // If the user isn't premium
         if(!user.getSubscriptionType().equals(Constants.PREMIUM)) {
-            jsonArrayOutput.add(fileWriter.writeFile(
+            results.add(
                     action.getActionId(),
-                    "",
-                    "FavoriteRecommendation cannot be applied!"));
+                    "FavoriteRecommendation cannot be applied!");
             return;
         }
 
         List<Movie> movies = entities.getMovies();
         List<Show> shows = entities.getShows();
 
-        // Count stars for movies
-        for(Movie movie: movies) {
-            movie.setFavoriteCount(countStarsForMovie(movie, users));
-        }
-        // Count stars for shows
-        for(Show show: shows) {
-            show.setFavoriteCount(countStarsForShow(show, users));
-        }
-
+        // The stars of the videos are kept up to date by the favorite command
         // <Movie/Show, Integer>: Put together movies and shows
         Map<String, Integer> topFavoriteVideos = new HashMap<>();
         for(Movie movie: movies) {
@@ -347,132 +196,81 @@ public final class ProcessRecommendation {
 
         for(var entry: sortedTopFavoriteVideos.entrySet()) {
             // Is the video a movie or a show?
-            List<Movie> bestMovies = filterMoviesByTitle(entry.getKey(), movies);
-            Movie bestMovie = null;
-            if(!bestMovies.isEmpty()) {
-                bestMovie = bestMovies.get(0);
-            }
-
-            List<Show> bestShows = filterShowsByTitle(entry.getKey(), shows);
-            Show bestShow = null;
-            if(!bestShows.isEmpty()) {
-                bestShow = bestShows.get(0);
-            }
+            Movie bestMovie = entities.getTitleIndex().getMovie(entry.getKey());
+            Show bestShow = entities.getTitleIndex().getShow(entry.getKey());
 
             if(bestMovie == null && bestShow == null) {
                 return; // Will never reach this return if everything was good before
             }
 
-            if(bestMovie != null && !user.getMoviesHistory().containsKey(bestMovie)) {
-                jsonArrayOutput.add(fileWriter.writeFile(
+            if(bestMovie != null && !user.hasViewed(bestMovie)) {
+                results.add(
                         action.getActionId(),
-                        "",
-                        "FavoriteRecommendation result: " + bestMovie.getTitle()));
+                        "FavoriteRecommendation result: " + bestMovie.getTitle());
                 return;
             }
 
-            if(bestShow != null && !user.getShowsHistory().containsKey(bestShow)) {
-                jsonArrayOutput.add(fileWriter.writeFile(
+            if(bestShow != null && !user.hasViewed(bestShow)) {
+                results.add(
                         action.getActionId(),
-                        "",
-                        "FavoriteRecommendation result: " + bestShow.getTitle()));
+                        "FavoriteRecommendation result: " + bestShow.getTitle());
                 return;
             }
         }
 
-        jsonArrayOutput.add(fileWriter.writeFile(
+        results.add(
                 action.getActionId(),
-                "",
-                "FavoriteRecommendation cannot be applied!"));
+                "FavoriteRecommendation cannot be applied!");
     }
 
     private static void search(ActionInputData action, Entities entities,
-                               JSONArray jsonArrayOutput, Writer fileWriter) throws IOException {
+                               ResultSink results) throws IOException {
 
         String usernameString = action.getUsername();
-        List<User> users = entities.getUsers();
-        List<User> usersFilteredByUsername = ProcessCommand.filterUsersByName(usernameString, users);
-        User user = usersFilteredByUsername.get(0);
+        User user = entities.getUser(usernameString);
         String genreWanted = action.getGenre();
 
         // If the user isn't premium
         if(!user.getSubscriptionType().equals(Constants.PREMIUM)) {
-            jsonArrayOutput.add(fileWriter.writeFile(
+            results.add(
                     action.getActionId(),
-                    "",
-                    "SearchRecommendation cannot be applied!"));
+                    "SearchRecommendation cannot be applied!");
             return;
         }
 
 
-        List<Movie> movies = entities.getMovies();
-        // Set average rating for each movie
-        for(Movie movie: movies) {
-            movie.setAverageRating(calculateAverageOfList(movie.getRatings()));
-        }
-
-        // Filter movies by genre and unwatched from user
-        List<Movie> filteredMovies = new ArrayList<>();
-        for(Movie movie: movies) {
-            if(movie.getGenres().contains(genreWanted) && !user.getMoviesHistory().containsKey(movie)) {
-                filteredMovies.add(movie);
-            }
-        }
-
-        List<Show> shows = entities.getShows();
-        // Set average rating for each show
-        List<Show> firstFilteredShows = new ArrayList<>();
-        for(Show show: shows) {
-            List<Season> seasons = show.getSeasons();
-
-            // If at least one season has at least on rating
-            boolean hasRatings = false;
-            for(Season season: seasons) {
-                if(!season.getRatings().isEmpty()) {
-                    hasRatings = true;
-                    break;
-                }
-            }
-            // If a show doesn't have any rating, go to the next show
-            if(!hasRatings) {
-                show.setAverageRating(0.0);
-                firstFilteredShows.add(show);
-                continue;
-            }
-
-            double ratingSum = 0.0;
-            int numberOfSeasons = show.getNumberOfSeasons();
-            for(Season season: seasons) {
-                ratingSum += calculateAverageOfList(season.getRatings());
-            }
-            double averageRating = ratingSum / numberOfSeasons;
-            show.setAverageRating(averageRating);
-
-            firstFilteredShows.add(show);
+        // Filter movies by genre and unwatched from user: the bitmap of the genre AND NOT the seen movies
+        BitSet unseenMovies = entities.getMovieIndexes().getFilters().withGenre(genreWanted);
+        unseenMovies.andNot(user.getMoviesSeen());
+        List<Movie> filteredMovies = new ArrayList<>(unseenMovies.cardinality());
+        for(int id = unseenMovies.nextSetBit(0); id >= 0; id = unseenMovies.nextSetBit(id + 1)) {
+            filteredMovies.add(entities.getMovie(id));
         }
 
         // Filter shows by genre and unwatched from user
-        List<Show> filteredShows = new ArrayList<>();
-        for(Show show: firstFilteredShows) {
-            if(show.getGenres().contains(genreWanted) && !user.getShowsHistory().containsKey(show)) {
-                filteredShows.add(show);
-            }
+        BitSet unseenShows = entities.getShowIndexes().getFilters().withGenre(genreWanted);
+        unseenShows.andNot(user.getShowsSeen());
+        List<Show> filteredShows = new ArrayList<>(unseenShows.cardinality());
+        for(int id = unseenShows.nextSetBit(0); id >= 0; id = unseenShows.nextSetBit(id + 1)) {
+            Show show = entities.getShow(id);
+            // If a show doesn't have any rating, its average is 0
+            show.setAverageRating(show.hasRatings() ? show.computeAverageRating() : 0.0);
+            filteredShows.add(show);
         }
 
         // Sort Movies ASC on rating and titles
-        filteredMovies.sort((Movie m1, Movie m2) -> m1.getTitle().compareTo(m2.getTitle()));
-        filteredMovies.sort((Movie m1, Movie m2) -> m1.getAverageRating().compareTo(m2.getAverageRating()));
+        filteredMovies.sort(Comparator.comparingDouble(Movie::getAverageRating)
+                .thenComparingInt(Movie::getTitleRank));
 
         // Sort Shows ASC on rating and titles
-        filteredShows.sort((Show s1, Show s2) -> s1.getTitle().compareTo(s2.getTitle()));
-        filteredShows.sort((Show s1, Show s2) -> s1.getAverageRating().compareTo(s2.getAverageRating()));
+        filteredShows.sort(Comparator.comparingDouble(Show::getAverageRating)
+                .thenComparingInt(Show::getTitleRank));
 
 
         if(filteredMovies.isEmpty() && filteredShows.isEmpty()) {
-            jsonArrayOutput.add(fileWriter.writeFile(
+            results.add(
                     action.getActionId(),
-                    "",
-                    "SearchRecommendation cannot be applied!"));
+                    "SearchRecommendation cannot be applied!");
             return;
         }
 
@@ -491,7 +289,7 @@ public final class ProcessRecommendation {
                 videosListString.append(filteredShows.get(j).getTitle());
                 j++;
             } else { // Equals rating -> Compare by title
-                if(filteredMovies.get(i).getTitle().compareTo(filteredShows.get(j).getTitle()) < 0) {
+                if(filteredMovies.get(i).getTitleRank() < filteredShows.get(j).getTitleRank()) {
                     videosListString.append(filteredMovies.get(i).getTitle());
                     i++;
                 } else {
@@ -517,10 +315,9 @@ public final class ProcessRecommendation {
             j++;
         }
 
-        jsonArrayOutput.add(fileWriter.writeFile(
+        results.add(
                 action.getActionId(),
-                "",
-                "SearchRecommendation result: [" + videosListString.toString() + "]"));
+                "SearchRecommendation result: [" + videosListString.toString() + "]");
 
     }
 }
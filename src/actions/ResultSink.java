@@ -0,0 +1,36 @@
+package actions;
+
+import common.Constants;
+import org.json.simple.JSONObject;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Receives the result of every action, in the order of the actions
+ */
+public interface ResultSink extends Closeable {
+    /**
+     * @param result the result of an action, as written to the output
+     */
+    void add(JSONObject result) throws IOException;
+
+    /**
+     * Adds the result of an action, in the form fileio.Writer.writeFile gives it
+     * @param id of the action
+     * @param message to be written
+     */
+    @SuppressWarnings("unchecked") // json-simple objects are raw maps
+    default void add(int id, String message) throws IOException {
+        JSONObject result = new JSONObject();
+        result.put(Constants.ID_STRING, id);
+        result.put(Constants.MESSAGE, message);
+        add(result);
+    }
+
+    /**
+     * Ends the results; nothing can be added after it
+     */
+    @Override
+    void close() throws IOException;
+}
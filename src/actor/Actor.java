@@ -1,25 +1,35 @@
 package actor;
 
+import common.Constants;
 import video.Movie;
 import video.Show;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.EnumMap;
 import java.util.HashMap;
 import java.util.Map;
 
 public class Actor {
+    // Position of the actor among the actors
+    private int id = Constants.NO_ID;
     private String name;
+    // Position of the name in the sorted names of all the actors; equal names share it
+    private int nameRank;
     private String careerDescription;
     private ArrayList<Movie> moviesPlayed;
     private ArrayList<Show> showsPlayed;
-    private Map<ActorsAwards, Integer> awards;
+    private final Map<ActorsAwards, Integer> awards = new EnumMap<>(ActorsAwards.class);
+    // Sum of the awards, kept with them
+    private int numberOfAllAwards;
     private Double averageRating;
 
 
     /** Constructors */
     public Actor(String name) {
         this.name = name;
+        this.moviesPlayed = new ArrayList<>();
+        this.showsPlayed = new ArrayList<>();
     }
 
     public Actor(String name, String careerDescription,
@@ -29,14 +39,22 @@ public class Actor {
         this.careerDescription = careerDescription;
         this.moviesPlayed = moviesPlayed;
         this.showsPlayed = showsPlayed;
-        this.awards = awards;
+        addAwards(awards);
     }
 
     /** Getters */
+    public int getId() {
+        return id;
+    }
+
     public String getName() {
         return name;
     }
 
+    public int getNameRank() {
+        return nameRank;
+    }
+
     public String getCareerDescription() {
         return careerDescription;
     }
@@ -57,25 +75,48 @@ public class Actor {
         return averageRating;
     }
 
-    public Integer getNumberOfAllAwards() {
-        return this.awards.values().stream().reduce(0, Integer::sum);
+    public int getNumberOfAllAwards() {
+        return numberOfAllAwards;
     }
 
     /** Setters */
+    public void setId(int id) {
+        this.id = id;
+    }
+
+    public void setNameRank(int nameRank) {
+        this.nameRank = nameRank;
+    }
+
+    // Award types that are not known (null) are left out
     public void addAwards(Map<ActorsAwards, Integer> awards) {
-        if(this.awards == null) {
-            this.awards = awards;
-        } else {
-            if(awards != null) {
-                this.awards.putAll(awards);
+        if(awards == null) {
+            return;
+        }
+        for(Map.Entry<ActorsAwards, Integer> award: awards.entrySet()) {
+            if(award.getKey() != null) {
+                this.awards.put(award.getKey(), award.getValue());
             }
         }
+
+        numberOfAllAwards = 0;
+        for(int numberOfAwards: this.awards.values()) {
+            numberOfAllAwards += numberOfAwards;
+        }
     }
 
     public void setCareerDescription(String careerDescription) {
         this.careerDescription = careerDescription;
     }
 
+    public void setMoviesPlayed(ArrayList<Movie> moviesPlayed) {
+        this.moviesPlayed = moviesPlayed;
+    }
+
+    public void setShowsPlayed(ArrayList<Show> showsPlayed) {
+        this.showsPlayed = showsPlayed;
+    }
+
     public void addMoviesPlayed(ArrayList<Movie> moviesPlayed) {
         if(moviesPlayed != null) {
             for (Movie moviePlayed : moviesPlayed) {
@@ -0,0 +1,33 @@
+package actor;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Keeps one Actor object for each name in the casts of the videos. Every entry of
+ * the list of actors stays its own actor: the first entry with a name completes
+ * the actor of the casts, the later ones with the same name get a new actor.
+ */
+public final class ActorRegistry {
+
+    /** Attributes */
+    private final Map<String, Actor> actors = new HashMap<>();
+    // Names already taken by an entry of the list of actors
+    private final Set<String> listed = new HashSet<>();
+
+    /** Getters */
+    // The first time a name is seen, the actor is created only with its name
+    public Actor getActor(String name) {
+        return actors.computeIfAbsent(name, Actor::new);
+    }
+
+    // The actor of the next entry of the list of actors with this name
+    public Actor getListedActor(String name) {
+        if(listed.add(name)) {
+            return getActor(name);
+        }
+        return new Actor(name);
+    }
+}
@@ -65,6 +65,14 @@ public final class Constants {
     public static final String OUT_PATH = "result/out_";
     public static final String REF_PATH = "ref";
     public static final String RESULT_PATH = "result";
+    // Directory of the snapshots, under java.io.tmpdir
+    public static final String SNAPSHOT_DIRECTORY = "videodb-snapshots";
+    public static final String SNAPSHOT_EXTENSION = ".snapshot";
+    // -Dloader=mapped reads the input files with the MappedInputLoader,
+    // -Dloader=parallel with the ParallelInputLoader
+    public static final String LOADER_PROPERTY = "loader";
+    public static final String MAPPED_LOADER = "mapped";
+    public static final String PARALLEL_LOADER = "parallel";
     public static final String JAR_PATH = "src/checker/checkstyle-8.36.2-all.jar";
     public static final String XML_PATH = "src/checker/poo_checks.xml";
     public static final String CHECKSTYLE_FILE = "checkstyle.txt";
@@ -95,4 +103,7 @@ public final class Constants {
     public static final String SEARCH = "search";
 
     public static final String PREMIUM = "PREMIUM";
+
+    // id of an entity that isn't part of an Entities
+    public static final int NO_ID = -1;
 }
@@ -1,5 +1,6 @@
 package converters;
 
+import actor.ActorRegistry;
 import actor.ActorsAwards;
 import fileio.ActorInputData;
 import actor.Actor;
@@ -7,45 +8,17 @@ import video.Movie;
 import video.Show;
 
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
 
 
 public final class ActorInputConverter {
 
-    private ActorInputConverter() {}
+    private final ArrayList<Actor> actors = new ArrayList<>();
 
-    private static ArrayList<Actor> actors = new ArrayList<>();
+    public ActorInputConverter() {}
 
-    public static List<Movie> filterMoviesByTitle(String title, List<Movie> movies) {
-        // Filter movies using streams
-        List<Movie> moviesFiltered = movies.stream().
-                filter(movie -> movie.getTitle().equals(title)).
-                collect(Collectors.toList());
-
-        // If it's not a movie that we are searching for
-        if(moviesFiltered.isEmpty()) {
-            return Collections.emptyList();
-        }
-        return moviesFiltered;
-    }
-
-    public static List<Show> filterShowsByTitle(String title, List<Show> shows) {
-        // Filter serial using streams
-        List<Show> showsFiltered = shows.stream().
-                filter(show -> show.getTitle().equals(title)).
-                collect(Collectors.toList());
-
-        // If it's not a serial that we are searching for
-        if(showsFiltered.isEmpty()) {
-            return Collections.emptyList();
-        }
-        return showsFiltered;
-    }
-
-    public static void convert(List<ActorInputData> actorsData, List<Movie> movies, List<Show> shows) {
+    public void convert(List<ActorInputData> actorsData, TitleIndex titles, ActorRegistry actorRegistry) {
         for(ActorInputData actor: actorsData) {
             String name = actor.getName();
             String careerDescription = actor.getCareerDescription();
@@ -55,25 +28,24 @@ public final class ActorInputConverter {
             ArrayList<Movie> moviesPlayed = new ArrayList<>();
             ArrayList<Show> showsPlayed = new ArrayList<>();
 
-            // For each video (Movie or Show)
+            // For each video (Movie or Show), every video with its title
             for(String videoTitle: filmography) {
-                // Search in the MovieObj list
-                List<Movie> moviesFiltered = filterMoviesByTitle(videoTitle, movies);
-
-                // Search in the ShowObj list
-                List<Show> showsFiltered = filterShowsByTitle(videoTitle, shows);
-
-                // The empty list was checked in the filter function above
-                moviesPlayed.addAll(moviesFiltered);
-                showsPlayed.addAll(showsFiltered);
+                moviesPlayed.addAll(titles.getMovies(videoTitle));
+                showsPlayed.addAll(titles.getShows(videoTitle));
             }
 
-            Actor actorObj = new Actor(name, careerDescription, moviesPlayed, showsPlayed, awards);
+            // Complete the actor referenced by the casts of the videos, unless an
+            // earlier entry with the same name already did
+            Actor actorObj = actorRegistry.getListedActor(name);
+            actorObj.setCareerDescription(careerDescription);
+            actorObj.setMoviesPlayed(moviesPlayed);
+            actorObj.setShowsPlayed(showsPlayed);
+            actorObj.addAwards(awards);
             actors.add(actorObj);
         }
     }
 
-    public static List<Actor> getObjActors() {
+    public List<Actor> getObjActors() {
         return actors;
     }
 
@@ -1,6 +1,7 @@
 package converters;
 
 import actor.Actor;
+import actor.ActorRegistry;
 import fileio.MovieInputData;
 import video.Movie;
 
@@ -10,9 +11,9 @@ import java.util.stream.Collectors;
 
 public final class MovieInputConverter {
 
-    private MovieInputConverter() {}
+    private final List<Movie> movies = new ArrayList<>(); // moviesConvertedToObjects
 
-    private static List<Movie> movies = new ArrayList<>(); // moviesConvertedToObjects
+    public MovieInputConverter() {}
 
     public static Actor filterActorsByName(String name, List<Actor> actors) {
         // Filter actors using streams
@@ -28,28 +29,30 @@ public final class MovieInputConverter {
     }
 
 
-    public static void convert(List<MovieInputData> moviesData) {
+    public void convert(List<MovieInputData> moviesData, ActorRegistry actorRegistry) {
         for(MovieInputData movie: moviesData) {
             int duration = movie.getDuration();
             int year = movie.getYear();
             String title = movie.getTitle();
             ArrayList<String> genres = movie.getGenres();
 
-            // In first iteration of conversion, create the actor only with name
+            // Share the actor of each name; it is completed when the actors are converted
             ArrayList<Actor> actors = new ArrayList<>();
             ArrayList<String> actorsString = movie.getCast();
             for(String actorString: actorsString) {
-                Actor currActor = new Actor(actorString);
+                Actor currActor = actorRegistry.getActor(actorString);
                 actors.add(currActor);
             }
 
             Movie movieObj = new Movie(title, year, duration, actors, genres);
+            // The id is already needed by the histories of the users
+            movieObj.setId(movies.size());
             movies.add(movieObj);
         }
     }
 
 
-    public static List<Movie> getObjMovies() {
+    public List<Movie> getObjMovies() {
         return movies;
     }
 
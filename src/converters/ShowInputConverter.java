@@ -1,5 +1,6 @@
 package converters;
 import actor.Actor;
+import actor.ActorRegistry;
 import actor.ActorsAwards;
 import fileio.SerialInputData;
 import video.Movie;
@@ -14,21 +15,22 @@ import static converters.MovieInputConverter.filterActorsByName;
 
 public final class ShowInputConverter {
 
-    private ShowInputConverter() {}
+    private final List<Show> shows = new ArrayList<>(); // showsConvertedToObjects (serialsConvToObj)
+    private int numberOfSeasonsConverted = 0;
 
-    private static List<Show> shows = new ArrayList<>(); // showsConvertedToObjects (serialsConvToObj)
+    public ShowInputConverter() {}
 
-    public static void convert(List<SerialInputData> showsData) {
+    public void convert(List<SerialInputData> showsData, ActorRegistry actorRegistry) {
         for(SerialInputData show: showsData) {
             String title = show.getTitle();
             int year = show.getYear();
             ArrayList<String> genres = show.getGenres();
 
-            // Convert String Actors to Object Actors
+            // Convert String Actors to the shared Object Actors
             ArrayList<Actor> actorsObj = new ArrayList<>();
             ArrayList<String> actorsString = show.getCast();
             for(String actorString: actorsString) {
-                Actor currActor = new Actor(actorString);
+                Actor currActor = actorRegistry.getActor(actorString);
                 actorsObj.add(currActor);
             }
 
@@ -42,15 +44,18 @@ public final class ShowInputConverter {
                 List<Double> ratings = season.getRatings();
 
                 Season currSeason = new Season(currentSeason, duration, ratings);
+                currSeason.setId(numberOfSeasonsConverted++);
                 seasonsObj.add(currSeason);
             }
 
             Show showObj = new Show(title, year, actorsObj, genres, numberOfSeasons, seasonsObj);
+            // The id is already needed by the histories of the users
+            showObj.setId(shows.size());
             shows.add(showObj);
         }
     }
 
-    public static List<Show> getObjShows() {
+    public List<Show> getObjShows() {
         return shows;
     }
 
@@ -0,0 +1,83 @@
+package converters;
+
+import video.Movie;
+import video.Show;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Title -> Video lookup, built once per load and shared by the converters.
+ * The users and the commands take the first video with a title, while the
+ * filmography of an actor holds every video with that title.
+ */
+public final class TitleIndex {
+
+    /** Attributes */
+    private final Map<String, Movie> movies;
+    private final Map<String, Show> shows;
+
+    // Every video of the titles that more than one video has, in list order
+    private final Map<String, List<Movie>> duplicateMovies;
+    private final Map<String, List<Show>> duplicateShows;
+
+    /** Constructors */
+    public TitleIndex(List<Movie> movies, List<Show> shows) {
+        this.movies = new HashMap<>();
+        this.shows = new HashMap<>();
+        this.duplicateMovies = new HashMap<>();
+        this.duplicateShows = new HashMap<>();
+
+        for(Movie movie: movies) {
+            index(this.movies, duplicateMovies, movie.getTitle(), movie);
+        }
+        for(Show show: shows) {
+            index(this.shows, duplicateShows, show.getTitle(), show);
+        }
+    }
+
+    private static <T> void index(Map<String, T> first, Map<String, List<T>> duplicates,
+                                  String title, T video) {
+        T firstVideo = first.putIfAbsent(title, video);
+        if(firstVideo == null) {
+            return;
+        }
+        duplicates.computeIfAbsent(title, key -> {
+            List<T> videos = new ArrayList<>();
+            videos.add(firstVideo);
+            return videos;
+        }).add(video);
+    }
+
+    private static <T> List<T> all(Map<String, T> first, Map<String, List<T>> duplicates,
+                                   String title) {
+        List<T> videos = duplicates.get(title);
+        if(videos != null) {
+            return videos;
+        }
+        T video = first.get(title);
+        return video == null ? Collections.emptyList() : Collections.singletonList(video);
+    }
+
+    /** Getters */
+    // Supposing that the titles are unique, the first video with the title
+    public Movie getMovie(String title) {
+        return movies.get(title);
+    }
+
+    public Show getShow(String title) {
+        return shows.get(title);
+    }
+
+    // Every video with the title, in list order
+    public List<Movie> getMovies(String title) {
+        return Collections.unmodifiableList(all(movies, duplicateMovies, title));
+    }
+
+    public List<Show> getShows(String title) {
+        return Collections.unmodifiableList(all(shows, duplicateShows, title));
+    }
+}
@@ -0,0 +1,189 @@
+package entities;
+
+import actor.Actor;
+import video.Movie;
+import video.RatingSum;
+import video.Season;
+import video.Show;
+import video.Video;
+
+import java.util.List;
+
+/**
+ * Reverse index from every video to the actors that list it in their
+ * filmography, used to know which average ratings of actors are out of date.
+ * <p>
+ * The actors of video i are {@code actorIds[start[i]] .. actorIds[start[i + 1] - 1]}.
+ * A rating is added to the running sums of the actors of the rated video and marks
+ * them as dirty, and only the dirty actors are recomputed by the next average query.
+ */
+public final class ActorIndex {
+
+    /** Attributes */
+    private final Actor[] actorsById;
+
+    private final int[] movieStart;
+    private final int[] movieActorIds;
+    private final int[] showStart;
+    private final int[] showActorIds;
+
+    // Running sums of the ratings of the movies and of the seasons of each actor,
+    // with the ratings of a video listed twice added twice
+    private final RatingSum[] movieRatings;
+    private final RatingSum[] seasonRatings;
+
+    // Ids of the dirty actors, in the order they were marked
+    private final boolean[] dirty;
+    private final int[] dirtyIds;
+    private int numberOfDirty;
+
+    /** Constructors */
+    ActorIndex(Actor[] actorsById, int numberOfMovies, int numberOfShows) {
+        this.actorsById = actorsById;
+
+        movieStart = new int[numberOfMovies + 1];
+        showStart = new int[numberOfShows + 1];
+        // First pass: count the actors of each video
+        for(int id = 0; id < actorsById.length; ++id) {
+            if(isFirstPosition(id)) {
+                count(movieStart, actorsById[id].getMoviesPlayed());
+                count(showStart, actorsById[id].getShowsPlayed());
+            }
+        }
+        movieActorIds = new int[prefixSums(movieStart)];
+        showActorIds = new int[prefixSums(showStart)];
+        // Second pass: fill them in
+        int[] movieNext = movieStart.clone();
+        int[] showNext = showStart.clone();
+        for(int id = 0; id < actorsById.length; ++id) {
+            if(isFirstPosition(id)) {
+                fill(movieNext, movieActorIds, actorsById[id].getMoviesPlayed(), id);
+                fill(showNext, showActorIds, actorsById[id].getShowsPlayed(), id);
+            }
+        }
+
+        // The ratings the videos already have
+        movieRatings = new RatingSum[actorsById.length];
+        seasonRatings = new RatingSum[actorsById.length];
+        for(int id = 0; id < actorsById.length; ++id) {
+            if(isFirstPosition(id)) {
+                movieRatings[id] = sumMovies(actorsById[id].getMoviesPlayed());
+                seasonRatings[id] = sumSeasons(actorsById[id].getShowsPlayed());
+            }
+        }
+
+        // No average was computed yet
+        dirty = new boolean[actorsById.length];
+        dirtyIds = new int[actorsById.length];
+        for(int id = 0; id < actorsById.length; ++id) {
+            if(isFirstPosition(id)) {
+                markDirty(id);
+            }
+        }
+    }
+
+    // An actor listed twice has the id of its first position
+    private boolean isFirstPosition(int id) {
+        return actorsById[id].getId() == id;
+    }
+
+    private static void count(int[] start, List<? extends Video> videos) {
+        if(videos == null) {
+            return;
+        }
+        for(Video video: videos) {
+            start[video.getId() + 1]++;
+        }
+    }
+
+    private static int prefixSums(int[] start) {
+        for(int i = 1; i < start.length; ++i) {
+            start[i] += start[i - 1];
+        }
+        return start[start.length - 1];
+    }
+
+    private static void fill(int[] next, int[] actorIds, List<? extends Video> videos, int actorId) {
+        if(videos == null) {
+            return;
+        }
+        for(Video video: videos) {
+            actorIds[next[video.getId()]++] = actorId;
+        }
+    }
+
+    private static RatingSum sumMovies(List<Movie> movies) {
+        RatingSum ratings = new RatingSum();
+        if(movies != null) {
+            for(Movie movie: movies) {
+                ratings.add(movie.getRatingSum());
+            }
+        }
+        return ratings;
+    }
+
+    private static RatingSum sumSeasons(List<Show> shows) {
+        RatingSum ratings = new RatingSum();
+        if(shows != null) {
+            for(Show show: shows) {
+                for(Season season: show.getSeasons()) {
+                    ratings.add(season.getRatingSum());
+                }
+            }
+        }
+        return ratings;
+    }
+
+    /** Dirty tracking */
+    private void markDirty(int actorId) {
+        if(!dirty[actorId]) {
+            dirty[actorId] = true;
+            dirtyIds[numberOfDirty++] = actorId;
+        }
+    }
+
+    private void addRating(int[] start, int[] actorIds, RatingSum[] ratings, int videoId,
+                           double rating) {
+        for(int i = start[videoId]; i < start[videoId + 1]; ++i) {
+            ratings[actorIds[i]].add(rating);
+            markDirty(actorIds[i]);
+        }
+    }
+
+    // Called when the movie gets a new rating
+    public void markRated(Movie movie, double rating) {
+        addRating(movieStart, movieActorIds, movieRatings, movie.getId(), rating);
+    }
+
+    // Called when a season of the show gets a new rating
+    public void markRated(Show show, double rating) {
+        addRating(showStart, showActorIds, seasonRatings, show.getId(), rating);
+    }
+
+    /** Getters */
+    // The ratings of the movies of the actor, kept up to date by markRated
+    public RatingSum getMovieRatings(Actor actor) {
+        return movieRatings[actor.getId()];
+    }
+
+    // The ratings of the seasons of the shows of the actor
+    public RatingSum getSeasonRatings(Actor actor) {
+        return seasonRatings[actor.getId()];
+    }
+
+    public int getNumberOfDirtyActors() {
+        return numberOfDirty;
+    }
+
+    public Actor getDirtyActor(int index) {
+        return actorsById[dirtyIds[index]];
+    }
+
+    // Called once the averages of all the dirty actors were recomputed
+    public void clearDirtyActors() {
+        for(int i = 0; i < numberOfDirty; ++i) {
+            dirty[dirtyIds[i]] = false;
+        }
+        numberOfDirty = 0;
+    }
+}
@@ -0,0 +1,57 @@
+package entities;
+
+import actor.Actor;
+import actor.ActorsAwards;
+import utils.Utils;
+
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * Bitmaps of the ids of the actors that won each award, built once with the
+ * entities. The actors with all the awards of a query are the AND of their bitmaps.
+ */
+public final class AwardIndex {
+
+    /** Attributes */
+    // Ids of all the actors (an actor listed twice has the id of its first position)
+    private final BitSet actorIds;
+    // Indexed by the ordinal of the award
+    private final BitSet[] byAward = new BitSet[ActorsAwards.values().length];
+
+    /** Constructors */
+    AwardIndex(Actor[] actorsById) {
+        actorIds = new BitSet(actorsById.length);
+        for(int award = 0; award < byAward.length; ++award) {
+            byAward[award] = new BitSet(actorsById.length);
+        }
+
+        for(int id = 0; id < actorsById.length; ++id) {
+            if(actorsById[id].getId() != id) {
+                continue;
+            }
+            actorIds.set(id);
+            for(ActorsAwards award: actorsById[id].getAwards().keySet()) {
+                byAward[award.ordinal()].set(id);
+            }
+        }
+    }
+
+    /**
+     * @param awards the names of the awards
+     * @return the ids of the actors that won all of them
+     */
+    public BitSet matching(List<String> awards) {
+        BitSet result = (BitSet) actorIds.clone();
+        for(String award: awards) {
+            ActorsAwards value = Utils.stringToAwards(award);
+            if(value == null) {
+                // No actor has an unknown award
+                result.clear();
+                break;
+            }
+            result.and(byAward[value.ordinal()]);
+        }
+        return result;
+    }
+}
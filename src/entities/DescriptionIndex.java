@@ -0,0 +1,169 @@
+package entities;
+
+import actor.Actor;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * Inverted index from every word of the career descriptions to the positions of
+ * the actors whose description contains it, built once with the entities.
+ * <p>
+ * The words are the runs of letters, digits and '_' of the lowercase description,
+ * the same runs the \b of the regex of the filter separates, so a filter word is
+ * found as a whole word exactly when it is one of them.
+ */
+public final class DescriptionIndex {
+
+    private static final int[] NO_POSITIONS = new int[0];
+
+    /** Attributes */
+    private final List<Actor> actors;
+    // Word <-> positions of the actors in the list, increasing
+    private final Map<String, int[]> postings = new HashMap<>();
+
+    /** Constructors */
+    DescriptionIndex(List<Actor> actors) {
+        this.actors = actors;
+
+        Map<String, Postings> lists = new HashMap<>();
+        for(int position = 0; position < actors.size(); ++position) {
+            String description = actors.get(position).getCareerDescription();
+            if(description == null) {
+                continue;
+            }
+            for(String word: words(description.toLowerCase())) {
+                lists.computeIfAbsent(word, key -> new Postings()).add(position);
+            }
+        }
+        for(Map.Entry<String, Postings> entry: lists.entrySet()) {
+            postings.put(entry.getKey(), entry.getValue().toArray());
+        }
+    }
+
+    /**
+     * @param filterWords the words to search for, case-insensitive and as whole words
+     * @return the actors whose description contains all the words, in the order of the list
+     */
+    public List<Actor> matching(List<String> filterWords) {
+        // Positions of the actors with all the plain words so far, null for all the actors
+        int[] positions = null;
+        List<String> otherWords = new ArrayList<>();
+        for(String word: filterWords) {
+            if(!isWord(word)) {
+                otherWords.add(word);
+                continue;
+            }
+            int[] wordPositions = postings.getOrDefault(asciiLowerCase(word), NO_POSITIONS);
+            positions = positions == null ? wordPositions : intersect(positions, wordPositions);
+        }
+
+        List<Actor> filteredActors = new ArrayList<>();
+        int count = positions == null ? actors.size() : positions.length;
+        for(int i = 0; i < count; ++i) {
+            Actor actor = actors.get(positions == null ? i : positions[i]);
+            if(containsAll(actor, otherWords)) {
+                filteredActors.add(actor);
+            }
+        }
+        return filteredActors;
+    }
+
+    // Words with spaces or symbols are not in the index: they are searched with the regex
+    private static boolean containsAll(Actor actor, List<String> words) {
+        for(String word: words) {
+            if(!Pattern.compile(".*\\b" + Pattern.quote(word) + "\\b.*", Pattern.CASE_INSENSITIVE).
+                    matcher(actor.getCareerDescription().toLowerCase())
+                    .find()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int[] intersect(int[] first, int[] second) {
+        int[] result = new int[Math.min(first.length, second.length)];
+        int size = 0;
+        int i = 0;
+        int j = 0;
+        while(i < first.length && j < second.length) {
+            if(first[i] < second[j]) {
+                i++;
+            } else if(first[i] > second[j]) {
+                j++;
+            } else {
+                result[size++] = first[i];
+                i++;
+                j++;
+            }
+        }
+        return Arrays.copyOf(result, size);
+    }
+
+    // The runs of word characters of the text, as \b sees them
+    private static List<String> words(String text) {
+        List<String> words = new ArrayList<>();
+        int start = -1;
+        for(int i = 0; i < text.length(); i += Character.charCount(text.codePointAt(i))) {
+            int codePoint = text.codePointAt(i);
+            // A non-spacing mark belongs to the word it follows
+            boolean inWord = isWordCharacter(codePoint)
+                    || (start >= 0 && Character.getType(codePoint) == Character.NON_SPACING_MARK);
+            if(inWord && start < 0) {
+                start = i;
+            } else if(!inWord && start >= 0) {
+                words.add(text.substring(start, i));
+                start = -1;
+            }
+        }
+        if(start >= 0) {
+            words.add(text.substring(start));
+        }
+        return words;
+    }
+
+    // True if the filter word is a single run of word characters
+    private static boolean isWord(String word) {
+        List<String> words = words(word);
+        return words.size() == 1 && words.get(0).length() == word.length();
+    }
+
+    private static boolean isWordCharacter(int codePoint) {
+        return Character.isLetterOrDigit(codePoint) || codePoint == '_';
+    }
+
+    // The regex ignores the case of the ASCII letters only
+    private static String asciiLowerCase(String word) {
+        StringBuilder result = new StringBuilder(word.length());
+        for(int i = 0; i < word.length(); ++i) {
+            char c = word.charAt(i);
+            result.append(c >= 'A' && c <= 'Z' ? (char) (c + ('a' - 'A')) : c);
+        }
+        return result.toString();
+    }
+
+    // Growing list of increasing positions
+    private static final class Postings {
+        private int[] positions = new int[1];
+        private int size;
+
+        void add(int position) {
+            // A word repeated in a description is listed once
+            if(size > 0 && positions[size - 1] == position) {
+                return;
+            }
+            if(size == positions.length) {
+                positions = Arrays.copyOf(positions, size * 2);
+            }
+            positions[size++] = position;
+        }
+
+        int[] toArray() {
+            return Arrays.copyOf(positions, size);
+        }
+    }
+}
@@ -1,11 +1,23 @@
 package entities;
 
 import actor.Actor;
+import common.Constants;
+import converters.TitleIndex;
 import user.User;
+import utils.IntIntMap;
 import video.Movie;
+import video.Season;
 import video.Show;
+import video.Video;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.ObjIntConsumer;
 
 public class Entities {
 
@@ -15,6 +27,35 @@ public class Entities {
     private List<Movie> movies;
     private List<Show> shows;
 
+    // Username <-> User, built once with the entities
+    private final Map<String, User> usersByName = new HashMap<>();
+    // Title <-> Movie and Show, shared with the converters
+    private TitleIndex titleIndex = new TitleIndex(new ArrayList<>(), new ArrayList<>());
+
+    // Entities indexed by their ids
+    private Actor[] actorsById = new Actor[0];
+    private User[] usersById = new User[0];
+    private Movie[] moviesById = new Movie[0];
+    private Show[] showsById = new Show[0];
+    private Season[] seasonsById = new Season[0];
+
+    // Video -> actors with it in their filmography, and the actors with an outdated average
+    private ActorIndex actorIndex = new ActorIndex(actorsById, 0, 0);
+
+    // Movies and shows in the order of the ranked queries, one index for every metric
+    private VideoIndexes<Movie> movieIndexes = indexMovies(moviesById);
+    private VideoIndexes<Show> showIndexes = indexShows(showsById);
+
+    // Word of a career description -> actors
+    private DescriptionIndex descriptionIndex = new DescriptionIndex(new ArrayList<>());
+    // Award -> actors
+    private AwardIndex awardIndex = new AwardIndex(actorsById);
+    // Genre -> views and videos
+    private GenreIndex genreIndex = new GenreIndex(moviesById, showsById);
+
+    // Results of the queries, until a command changes what they depend on
+    private final QueryCache queryCache = new QueryCache();
+
     /** Constructors */
     public Entities() {
         this.actors = null;
@@ -24,10 +65,159 @@ public class Entities {
     }
 
     public Entities(List<Actor> actors, List<User> users, List<Movie> movies, List<Show> shows) {
+        this(actors, users, movies, shows, new TitleIndex(movies, shows));
+    }
+
+    public Entities(List<Actor> actors, List<User> users, List<Movie> movies, List<Show> shows,
+                    TitleIndex titleIndex) {
         this.actors = actors;
         this.users = users;
         this.movies = movies;
         this.shows = shows;
+        this.titleIndex = titleIndex;
+
+        if(users != null) {
+            for(User user: users) {
+                // Like a search through the list, the first user with a name wins
+                usersByName.putIfAbsent(user.getUsername(), user);
+            }
+        }
+
+        assignIds();
+        assignRanks();
+        countViews();
+        countFavorites();
+        actorIndex = new ActorIndex(actorsById, moviesById.length, showsById.length);
+        movieIndexes = indexMovies(moviesById);
+        showIndexes = indexShows(showsById);
+        if(actors != null) {
+            descriptionIndex = new DescriptionIndex(actors);
+        }
+        awardIndex = new AwardIndex(actorsById);
+        genreIndex = new GenreIndex(moviesById, showsById);
+    }
+
+    private static VideoIndexes<Movie> indexMovies(Movie[] movies) {
+        return new VideoIndexes<>(movies, Movie::getDuration, Movie::getAverageRating);
+    }
+
+    private static VideoIndexes<Show> indexShows(Show[] shows) {
+        return new VideoIndexes<>(shows, Show::getTotalDuration,
+                show -> show.hasRatings() ? show.computeAverageRating() : 0.0);
+    }
+
+    // Every entity gets its position in its list as id
+    private void assignIds() {
+        if(actors != null) {
+            actorsById = actors.toArray(new Actor[0]);
+            for(int i = actorsById.length - 1; i >= 0; --i) {
+                // An actor listed twice keeps the id of its first position
+                actorsById[i].setId(i);
+            }
+        }
+        if(users != null) {
+            usersById = users.toArray(new User[0]);
+            for(int i = 0; i < usersById.length; ++i) {
+                usersById[i].setId(i);
+            }
+        }
+        if(movies != null) {
+            moviesById = movies.toArray(new Movie[0]);
+            for(int i = 0; i < moviesById.length; ++i) {
+                moviesById[i].setId(i);
+            }
+        }
+        if(shows != null) {
+            showsById = shows.toArray(new Show[0]);
+            List<Season> seasons = new ArrayList<>();
+            for(int i = 0; i < showsById.length; ++i) {
+                showsById[i].setId(i);
+                if(showsById[i].getSeasons() == null) {
+                    continue;
+                }
+                for(Season season: showsById[i].getSeasons()) {
+                    season.setId(seasons.size());
+                    seasons.add(season);
+                }
+            }
+            seasonsById = seasons.toArray(new Season[0]);
+        }
+    }
+
+    // Ranks the titles, names and usernames once, so the sorts compare ints instead of Strings
+    private void assignRanks() {
+        assignRanks(actorsById, Actor::getName, Actor::setNameRank);
+        assignRanks(usersById, User::getUsername, User::setUsernameRank);
+
+        // Movies and shows share the ranks, so the titles of both can be compared
+        Video[] videos = new Video[moviesById.length + showsById.length];
+        System.arraycopy(moviesById, 0, videos, 0, moviesById.length);
+        System.arraycopy(showsById, 0, videos, moviesById.length, showsById.length);
+        assignRanks(videos, Video::getTitle, Video::setTitleRank);
+    }
+
+    // Comparing the ranks of two entities gives the sign of comparing their Strings
+    private static <T> void assignRanks(T[] entities, Function<T, String> key, ObjIntConsumer<T> setRank) {
+        T[] sorted = entities.clone();
+        Arrays.sort(sorted, Comparator.comparing(key));
+
+        int rank = 0;
+        for(int i = 0; i < sorted.length; ++i) {
+            if(i > 0 && !key.apply(sorted[i]).equals(key.apply(sorted[i - 1]))) {
+                rank++;
+            }
+            setRank.accept(sorted[i], rank);
+        }
+    }
+
+    // Seeds the number of views of every video from the histories of the users
+    private void countViews() {
+        for(Movie movie: moviesById) {
+            movie.setNumberOfViews(0);
+        }
+        for(Show show: showsById) {
+            show.setNumberOfViews(0);
+        }
+        for(User user: usersById) {
+            IntIntMap moviesHistory = user.getMoviesHistory();
+            for(int movieId: moviesHistory.keys()) {
+                moviesById[movieId].addViews(moviesHistory.get(movieId));
+            }
+            IntIntMap showsHistory = user.getShowsHistory();
+            for(int showId: showsHistory.keys()) {
+                showsById[showId].addViews(showsHistory.get(showId));
+            }
+        }
+    }
+
+    // Seeds the favorite count of every video: the number of users with it in their favorites
+    private void countFavorites() {
+        // The last user that counted each video, so a video listed twice counts once
+        int[] movieCountedBy = new int[moviesById.length];
+        int[] showCountedBy = new int[showsById.length];
+        Arrays.fill(movieCountedBy, Constants.NO_ID);
+        Arrays.fill(showCountedBy, Constants.NO_ID);
+
+        for(Movie movie: moviesById) {
+            movie.setFavoriteCount(0);
+        }
+        for(Show show: showsById) {
+            show.setFavoriteCount(0);
+        }
+        for(User user: usersById) {
+            for(Movie movie: user.getMoviesFavorite()) {
+                if(movieCountedBy[movie.getId()] != user.getId()) {
+                    movieCountedBy[movie.getId()] = user.getId();
+                    movie.addFavorite();
+                }
+            }
+            for(Show show: user.getShowsFavorite()) {
+                if(showCountedBy[show.getId()] != user.getId()) {
+                    showCountedBy[show.getId()] = user.getId();
+                    show.addFavorite();
+                }
+            }
+        }
     }
 
     /** Getters */
@@ -39,6 +229,10 @@ public class Entities {
         return users;
     }
 
+    public User getUser(String username) {
+        return usersByName.get(username);
+    }
+
     public List<Movie> getMovies() {
         return movies;
     }
@@ -47,4 +241,81 @@ public class Entities {
         return shows;
     }
 
+    public ActorIndex getActorIndex() {
+        return actorIndex;
+    }
+
+    public VideoIndexes<Movie> getMovieIndexes() {
+        return movieIndexes;
+    }
+
+    public VideoIndexes<Show> getShowIndexes() {
+        return showIndexes;
+    }
+
+    public TitleIndex getTitleIndex() {
+        return titleIndex;
+    }
+
+    public DescriptionIndex getDescriptionIndex() {
+        return descriptionIndex;
+    }
+
+    public AwardIndex getAwardIndex() {
+        return awardIndex;
+    }
+
+    public GenreIndex getGenreIndex() {
+        return genreIndex;
+    }
+
+    public QueryCache getQueryCache() {
+        return queryCache;
+    }
+
+    public Actor getActor(int id) {
+        return actorsById[id];
+    }
+
+    public User getUser(int id) {
+        return usersById[id];
+    }
+
+    public Movie getMovie(int id) {
+        return moviesById[id];
+    }
+
+    public Show getShow(int id) {
+        return showsById[id];
+    }
+
+    public Season getSeason(int id) {
+        return seasonsById[id];
+    }
+
+    public int getNumberOfActors() {
+        return actorsById.length;
+    }
+
+    public int getNumberOfUsers() {
+        return usersById.length;
+    }
+
+    public int getNumberOfMovies() {
+        return moviesById.length;
+    }
+
+    public int getNumberOfShows() {
+        return showsById.length;
+    }
+
+    public int getNumberOfSeasons() {
+        return seasonsById.length;
+    }
+
+    // The default limit of the queries: the size of the largest section of the database
+    public int getDatabaseSize() {
+        return Math.max(Math.max(moviesById.length + showsById.length, usersById.length), actorsById.length);
+    }
+
 }
@@ -0,0 +1,463 @@
+package entities;
+
+import actor.Actor;
+import actor.ActorRegistry;
+import actor.ActorsAwards;
+import user.User;
+import utils.IntDoubleMap;
+import utils.IntIntMap;
+import video.Movie;
+import video.Season;
+import video.Show;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.ToIntFunction;
+
+/**
+ * Binary snapshot of the converted Entities (movies, shows, actors and users).
+ *
+ * All the strings are stored once, in a table at the start of the file, and every
+ * reference between entities (filmography, history, favorites, ratings) is stored as
+ * the id of the entity, which is its index in its list, so loading a snapshot doesn't search anything
+ * by title. Snapshots are read through a memory map, so they are limited to 2 GB.
+ * The header keeps the path, size, modification time and checksum of the input file
+ * the entities were converted from, so a snapshot is only reused for that file, as
+ * long as it is unchanged (see {@link #isUpToDate}). The file is written under a
+ * temporary name and then renamed, so a run never sees a partly written snapshot.
+ */
+public final class EntitiesSnapshot {
+
+    private EntitiesSnapshot() {}
+
+    private static final int MAGIC = 0x56444253; // "VDBS"
+    private static final int VERSION = 4;
+    private static final int NONE = -1;
+
+
+    /**
+     * @param path the snapshot
+     * @param source the current stamp of the input file
+     * @return true if the snapshot was written from the source, as it is now
+     */
+    public static boolean isUpToDate(String path, SnapshotSource source) {
+        File snapshot = new File(path);
+        if(!snapshot.isFile()) {
+            return false;
+        }
+        try(DataInputStream in = new DataInputStream(
+                new BufferedInputStream(new FileInputStream(snapshot)))) {
+            return in.readInt() == MAGIC && in.readInt() == VERSION
+                    && SnapshotSource.read(in).equals(source);
+        } catch(IOException e) {
+            return false;
+        }
+    }
+
+
+    /** Write */
+    // The entities have to be written before any action changed them
+    public static void write(Entities entities, SnapshotSource source, String path)
+            throws IOException {
+        StringTable strings = new StringTable();
+
+        // Season id -> showId and seasonIndex
+        int[] seasonShows = new int[entities.getNumberOfSeasons()];
+        int[] seasonIndexes = new int[entities.getNumberOfSeasons()];
+        for(Show show: entities.getShows()) {
+            List<Season> seasons = show.getSeasons();
+            if(seasons == null) {
+                continue;
+            }
+            for(int j = 0; j < seasons.size(); ++j) {
+                seasonShows[seasons.get(j).getId()] = show.getId();
+                seasonIndexes[seasons.get(j).getId()] = j;
+            }
+        }
+
+        // The body is built first, so the string table is complete when the file is written
+        ByteArrayOutputStream bodyBytes = new ByteArrayOutputStream();
+        DataOutputStream body = new DataOutputStream(bodyBytes);
+
+        // Movies
+        body.writeInt(entities.getMovies().size());
+        for(Movie movie: entities.getMovies()) {
+            body.writeInt(strings.id(movie.getTitle()));
+            body.writeInt(movie.getYear());
+            body.writeInt(movie.getDuration());
+            writeStrings(body, strings, movie.getGenres());
+            writeStrings(body, strings, actorNames(movie.getActors()));
+            writeRatings(body, movie.getRatings());
+        }
+
+        // Shows
+        body.writeInt(entities.getShows().size());
+        for(Show show: entities.getShows()) {
+            body.writeInt(strings.id(show.getTitle()));
+            body.writeInt(show.getYear());
+            writeStrings(body, strings, show.getGenres());
+            writeStrings(body, strings, actorNames(show.getActors()));
+            body.writeInt(show.getNumberOfSeasons());
+            if(show.getSeasons() == null) {
+                body.writeInt(NONE);
+                continue;
+            }
+            body.writeInt(show.getSeasons().size());
+            for(Season season: show.getSeasons()) {
+                body.writeInt(season.getCurrentSeason());
+                body.writeInt(season.getDuration());
+                writeRatings(body, season.getRatings());
+            }
+        }
+
+        // Actors
+        body.writeInt(entities.getActors().size());
+        for(Actor actor: entities.getActors()) {
+            body.writeInt(strings.id(actor.getName()));
+            body.writeInt(strings.id(actor.getCareerDescription()));
+            writeIds(body, actor.getMoviesPlayed(), Movie::getId);
+            writeIds(body, actor.getShowsPlayed(), Show::getId);
+
+            Map<ActorsAwards, Integer> awards = actor.getAwards();
+            if(awards == null) {
+                body.writeInt(NONE);
+            } else {
+                body.writeInt(awards.size());
+                for(Map.Entry<ActorsAwards, Integer> award: awards.entrySet()) {
+                    body.writeInt(award.getKey() == null ? NONE : award.getKey().ordinal());
+                    body.writeInt(award.getValue());
+                }
+            }
+        }
+
+        // Users
+        body.writeInt(entities.getUsers().size());
+        for(User user: entities.getUsers()) {
+            body.writeInt(strings.id(user.getUsername()));
+            body.writeInt(strings.id(user.getSubscriptionType()));
+
+            writeHistory(body, user.getMoviesHistory());
+            writeHistory(body, user.getShowsHistory());
+
+            writeIds(body, user.getMoviesFavorite(), Movie::getId);
+            writeIds(body, user.getShowsFavorite(), Show::getId);
+
+            IntDoubleMap moviesRating = user.getMoviesRating();
+            body.writeInt(moviesRating.size());
+            for(int movieId: moviesRating.keys()) {
+                body.writeInt(movieId);
+                body.writeDouble(moviesRating.get(movieId));
+            }
+            IntDoubleMap seasonsRating = user.getSeasonRating();
+            body.writeInt(seasonsRating.size());
+            for(int seasonId: seasonsRating.keys()) {
+                body.writeInt(seasonShows[seasonId]);
+                body.writeInt(seasonIndexes[seasonId]);
+                body.writeDouble(seasonsRating.get(seasonId));
+            }
+        }
+        body.flush();
+
+        Path target = Paths.get(path).toAbsolutePath();
+        Path temporary = Files.createTempFile(target.getParent(),
+                target.getFileName().toString(), ".tmp");
+        try {
+            try(DataOutputStream out = new DataOutputStream(
+                    new BufferedOutputStream(Files.newOutputStream(temporary)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                source.write(out);
+                out.writeInt(strings.values.size());
+                for(String value: strings.values) {
+                    byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+                    out.writeInt(bytes.length);
+                    out.write(bytes);
+                }
+                bodyBytes.writeTo(out);
+            }
+            // Replaces an older snapshot at once, even if another run is reading it
+            Files.move(temporary, target, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    private static List<String> actorNames(List<Actor> actors) {
+        if(actors == null) {
+            return null;
+        }
+        List<String> names = new ArrayList<>();
+        for(Actor actor: actors) {
+            names.add(actor.getName());
+        }
+        return names;
+    }
+
+    private static void writeStrings(DataOutputStream out, StringTable strings,
+                                     List<String> values) throws IOException {
+        if(values == null) {
+            out.writeInt(NONE);
+            return;
+        }
+        out.writeInt(values.size());
+        for(String value: values) {
+            out.writeInt(strings.id(value));
+        }
+    }
+
+    private static void writeHistory(DataOutputStream out, IntIntMap history) throws IOException {
+        out.writeInt(history.size());
+        for(int videoId: history.keys()) {
+            out.writeInt(videoId);
+            out.writeInt(history.get(videoId));
+        }
+    }
+
+    private static void writeRatings(DataOutputStream out, List<Double> ratings) throws IOException {
+        out.writeInt(ratings.size());
+        for(Double rating: ratings) {
+            out.writeDouble(rating);
+        }
+    }
+
+    private static <T> void writeIds(DataOutputStream out, List<T> values,
+                                     ToIntFunction<T> ids) throws IOException {
+        if(values == null) {
+            out.writeInt(NONE);
+            return;
+        }
+        out.writeInt(values.size());
+        for(T value: values) {
+            out.writeInt(ids.applyAsInt(value));
+        }
+    }
+
+
+    /** Read */
+    public static Entities read(String path) throws IOException {
+        MappedByteBuffer in;
+        try(FileChannel channel = FileChannel.open(Paths.get(path), StandardOpenOption.READ)) {
+            in = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+
+        if(in.getInt() != MAGIC) {
+            throw new IOException(path + " is not an entities snapshot");
+        }
+        if(in.getInt() != VERSION) {
+            throw new IOException(path + " was written by another snapshot version");
+        }
+        // The source is only needed by isUpToDate: its path, size, time and checksum
+        int sourceLength = Short.toUnsignedInt(in.getShort());
+        in.position(in.position() + sourceLength + 2 * Long.BYTES + Integer.BYTES);
+
+        String[] strings = new String[in.getInt()];
+        for(int i = 0; i < strings.length; ++i) {
+            byte[] bytes = new byte[in.getInt()];
+            in.get(bytes);
+            strings[i] = new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        // The casts share one actor for each name, as the converters do
+        ActorRegistry actorRegistry = new ActorRegistry();
+
+        // Movies
+        List<Movie> movies = new ArrayList<>();
+        int numberOfMovies = in.getInt();
+        for(int i = 0; i < numberOfMovies; ++i) {
+            String title = string(strings, in.getInt());
+            int year = in.getInt();
+            int duration = in.getInt();
+            ArrayList<String> genres = readStrings(in, strings);
+            ArrayList<Actor> cast = readActors(in, strings, actorRegistry);
+
+            Movie movie = new Movie(title, year, duration, cast, genres);
+            // The histories of the users are keyed by the ids
+            movie.setId(i);
+            int numberOfRatings = in.getInt();
+            for(int j = 0; j < numberOfRatings; ++j) {
+                movie.addRating(in.getDouble());
+            }
+            movies.add(movie);
+        }
+
+        // Shows
+        List<Show> shows = new ArrayList<>();
+        int numberOfSeasonsRead = 0;
+        int numberOfShows = in.getInt();
+        for(int i = 0; i < numberOfShows; ++i) {
+            String title = string(strings, in.getInt());
+            int year = in.getInt();
+            ArrayList<String> genres = readStrings(in, strings);
+            ArrayList<Actor> cast = readActors(in, strings, actorRegistry);
+            int numberOfSeasons = in.getInt();
+
+            ArrayList<Season> seasons = null;
+            int seasonsSize = in.getInt();
+            if(seasonsSize != NONE) {
+                seasons = new ArrayList<>();
+                for(int j = 0; j < seasonsSize; ++j) {
+                    int currentSeason = in.getInt();
+                    int duration = in.getInt();
+                    List<Double> ratings = new ArrayList<>();
+                    int numberOfRatings = in.getInt();
+                    for(int k = 0; k < numberOfRatings; ++k) {
+                        ratings.add(in.getDouble());
+                    }
+                    Season season = new Season(currentSeason, duration, ratings);
+                    season.setId(numberOfSeasonsRead++);
+                    seasons.add(season);
+                }
+            }
+            Show show = new Show(title, year, cast, genres, numberOfSeasons, seasons);
+            show.setId(i);
+            shows.add(show);
+        }
+
+        // Actors
+        List<Actor> actors = new ArrayList<>();
+        ActorsAwards[] allAwards = ActorsAwards.values();
+        int numberOfActors = in.getInt();
+        for(int i = 0; i < numberOfActors; ++i) {
+            String name = string(strings, in.getInt());
+            String careerDescription = string(strings, in.getInt());
+            ArrayList<Movie> moviesPlayed = readReferences(in, movies);
+            ArrayList<Show> showsPlayed = readReferences(in, shows);
+
+            Map<ActorsAwards, Integer> awards = null;
+            int numberOfAwards = in.getInt();
+            if(numberOfAwards != NONE) {
+                awards = new LinkedHashMap<>();
+                for(int j = 0; j < numberOfAwards; ++j) {
+                    int award = in.getInt();
+                    awards.put(award == NONE ? null : allAwards[award], in.getInt());
+                }
+            }
+            Actor actor = actorRegistry.getListedActor(name);
+            actor.setCareerDescription(careerDescription);
+            actor.setMoviesPlayed(moviesPlayed);
+            actor.setShowsPlayed(showsPlayed);
+            actor.addAwards(awards);
+            actors.add(actor);
+        }
+
+        // Users
+        List<User> users = new ArrayList<>();
+        int numberOfUsers = in.getInt();
+        for(int i = 0; i < numberOfUsers; ++i) {
+            String username = string(strings, in.getInt());
+            String subscriptionType = string(strings, in.getInt());
+
+            IntIntMap moviesHistory = readHistory(in);
+            IntIntMap showsHistory = readHistory(in);
+
+            ArrayList<Movie> moviesFavorite = readReferences(in, movies);
+            ArrayList<Show> showsFavorite = readReferences(in, shows);
+
+            IntDoubleMap moviesRating = new IntDoubleMap();
+            int size = in.getInt();
+            for(int j = 0; j < size; ++j) {
+                moviesRating.put(in.getInt(), in.getDouble());
+            }
+            IntDoubleMap seasonsRating = new IntDoubleMap();
+            size = in.getInt();
+            for(int j = 0; j < size; ++j) {
+                Show show = shows.get(in.getInt());
+                seasonsRating.put(show.getSeasons().get(in.getInt()).getId(), in.getDouble());
+            }
+
+            users.add(new User(username, subscriptionType,
+                    moviesHistory, showsHistory,
+                    moviesFavorite, showsFavorite,
+                    moviesRating, seasonsRating));
+        }
+
+        return new Entities(actors, users, movies, shows);
+    }
+
+    private static String string(String[] strings, int id) {
+        return id == NONE ? null : strings[id];
+    }
+
+    private static ArrayList<String> readStrings(MappedByteBuffer in, String[] strings) {
+        int size = in.getInt();
+        if(size == NONE) {
+            return null;
+        }
+        ArrayList<String> values = new ArrayList<>(size);
+        for(int i = 0; i < size; ++i) {
+            values.add(string(strings, in.getInt()));
+        }
+        return values;
+    }
+
+    private static ArrayList<Actor> readActors(MappedByteBuffer in, String[] strings,
+                                               ActorRegistry actorRegistry) {
+        ArrayList<String> names = readStrings(in, strings);
+        if(names == null) {
+            return null;
+        }
+        // Like the converters, the cast holds the shared actors
+        ArrayList<Actor> actors = new ArrayList<>(names.size());
+        for(String name: names) {
+            actors.add(actorRegistry.getActor(name));
+        }
+        return actors;
+    }
+
+    private static IntIntMap readHistory(MappedByteBuffer in) {
+        IntIntMap history = new IntIntMap();
+        int size = in.getInt();
+        for(int i = 0; i < size; ++i) {
+            history.put(in.getInt(), in.getInt());
+        }
+        return history;
+    }
+
+    private static <T> ArrayList<T> readReferences(MappedByteBuffer in, List<T> entities) {
+        int size = in.getInt();
+        if(size == NONE) {
+            return null;
+        }
+        ArrayList<T> values = new ArrayList<>(size);
+        for(int i = 0; i < size; ++i) {
+            values.add(entities.get(in.getInt()));
+        }
+        return values;
+    }
+
+
+    /** Deduplicated strings of a snapshot, in order of first use */
+    private static final class StringTable {
+        private final List<String> values = new ArrayList<>();
+        private final Map<String, Integer> ids = new HashMap<>();
+
+        int id(String value) {
+            if(value == null) {
+                return NONE;
+            }
+            return ids.computeIfAbsent(value, v -> {
+                values.add(v);
+                return values.size() - 1;
+            });
+        }
+    }
+}
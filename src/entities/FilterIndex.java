@@ -0,0 +1,103 @@
+package entities;
+
+import entertainment.Genre;
+import utils.Utils;
+import video.Video;
+
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Bitmaps of the ids of the movies (or of the shows) of every year and of every
+ * genre, built once since neither changes. The year and genre filters of the
+ * queries are answered by intersecting them instead of scanning the videos.
+ * The few videos with a genre string that is not the name of a genre have no bit
+ * for it, so their strings are still compared.
+ */
+public final class FilterIndex {
+
+    /** Attributes */
+    private final Video[] videosById;
+    private final int numberOfVideos;
+    private final Map<Integer, BitSet> byYear = new HashMap<>();
+    // Indexed by the ordinal of the genre
+    private final BitSet[] byGenre = new BitSet[Genre.values().length];
+    // Ids of the videos with a genre string without a bit
+    private final BitSet withUnknownGenre = new BitSet();
+
+    /** Constructors */
+    FilterIndex(Video[] videosById) {
+        this.videosById = videosById;
+        numberOfVideos = videosById.length;
+        for(int bit = 0; bit < byGenre.length; ++bit) {
+            byGenre[bit] = new BitSet();
+        }
+
+        for(Video video: videosById) {
+            byYear.computeIfAbsent(video.getYear(), year -> new BitSet()).set(video.getId());
+            for(int bit = 0; bit < byGenre.length; ++bit) {
+                if(video.hasGenre(1 << bit)) {
+                    byGenre[bit].set(video.getId());
+                }
+            }
+            if(video.hasUnknownGenre()) {
+                withUnknownGenre.set(video.getId());
+            }
+        }
+    }
+
+    /**
+     * @param year the year of the videos, null for any year
+     * @param genre the videos must have a genre containing it, null for any genre
+     * @return the ids of the videos that pass both filters
+     */
+    public BitSet matching(Integer year, String genre) {
+        BitSet result = new BitSet(numberOfVideos);
+        if(year == null) {
+            result.set(0, numberOfVideos);
+        } else if(byYear.containsKey(year)) {
+            result.or(byYear.get(year));
+        }
+
+        if(genre != null) {
+            BitSet ofGenres = ofMask(Utils.genreFilterToMask(genre));
+            for(int id = withUnknownGenre.nextSetBit(0); id >= 0; id = withUnknownGenre.nextSetBit(id + 1)) {
+                if(videosById[id].getGenres().stream().anyMatch(g -> g.contains(genre))) {
+                    ofGenres.set(id);
+                }
+            }
+            result.and(ofGenres);
+        }
+        return result;
+    }
+
+    /**
+     * @param genre a genre string, compared as it is
+     * @return the ids of the videos with the genre in their list
+     */
+    public BitSet withGenre(String genre) {
+        int genreMask = Utils.genreToMask(genre);
+        BitSet result = ofMask(genreMask);
+        if(genreMask == 0) {
+            // Not the name of a genre: only the videos with other strings can have it
+            for(int id = withUnknownGenre.nextSetBit(0); id >= 0; id = withUnknownGenre.nextSetBit(id + 1)) {
+                if(videosById[id].getGenres().contains(genre)) {
+                    result.set(id);
+                }
+            }
+        }
+        return result;
+    }
+
+    // Ids of the videos with one of the genres of the mask
+    private BitSet ofMask(int genreMask) {
+        BitSet result = new BitSet(numberOfVideos);
+        for(int bit = 0; bit < byGenre.length; ++bit) {
+            if((genreMask & (1 << bit)) != 0) {
+                result.or(byGenre[bit]);
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,177 @@
+package entities;
+
+import entertainment.Genre;
+import utils.Utils;
+import video.Movie;
+import video.Show;
+import video.Video;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The number of views of every genre, kept up to date by the view command, and
+ * bitmaps of the ids of the movies and shows of every genre, for the popular
+ * recommendation. A genre is identified by the bit of its mask; the genre strings
+ * that are not the name of a genre get the ids after them, in the order they appear.
+ */
+public final class GenreIndex {
+
+    /** Attributes */
+    // Genres of the videos, in the order the popular recommendation keeps for equal views
+    private final int[] genres;
+    // Genre strings without a bit <-> their ids
+    private final Map<String, Integer> unknownGenres = new LinkedHashMap<>();
+    private final int[] views;
+    private final BitSet[] moviesByGenre;
+    private final BitSet[] showsByGenre;
+
+    /** Constructors */
+    GenreIndex(Movie[] moviesById, Show[] showsById) {
+        // The genres viewed as a string list, in the order they appear
+        List<String> allGenres = new ArrayList<>();
+        int allGenresMask = 0;
+        for(Movie movie: moviesById) {
+            allGenresMask = addNewGenres(movie.getGenres(), allGenres, allGenresMask);
+        }
+        for(Show show: showsById) {
+            allGenresMask = addNewGenres(show.getGenres(), allGenres, allGenresMask);
+        }
+
+        // The recommendation used to sort a HashMap of the genre names (a stable sort),
+        // so equal views keep the iteration order of that map
+        Map<String, Integer> genresByName = new HashMap<>();
+        for(String genre: allGenres) {
+            genresByName.put(genre, genreId(genre));
+        }
+        genres = genresByName.values().stream().mapToInt(Integer::intValue).toArray();
+
+        int numberOfGenres = Genre.values().length + unknownGenres.size();
+        views = new int[numberOfGenres];
+        moviesByGenre = new BitSet[numberOfGenres];
+        showsByGenre = new BitSet[numberOfGenres];
+        for(int genre = 0; genre < numberOfGenres; ++genre) {
+            moviesByGenre[genre] = new BitSet(moviesById.length);
+            showsByGenre[genre] = new BitSet(showsById.length);
+        }
+        for(Movie movie: moviesById) {
+            for(int genre: genreIds(movie)) {
+                moviesByGenre[genre].set(movie.getId());
+            }
+            addViews(movie, movie.getNumberOfViews());
+        }
+        for(Show show: showsById) {
+            for(int genre: genreIds(show)) {
+                showsByGenre[genre].set(show.getId());
+            }
+            addViews(show, show.getNumberOfViews());
+        }
+    }
+
+    // Appends the genres that are not in the list yet; returns the updated mask
+    private int addNewGenres(List<String> genres, List<String> allGenres, int allGenresMask) {
+        if(genres == null) {
+            return allGenresMask;
+        }
+        for(String genre: genres) {
+            int genreMask = Utils.genreToMask(genre);
+            if(genreMask == 0) {
+                if(!unknownGenres.containsKey(genre)) {
+                    unknownGenres.put(genre, Genre.values().length + unknownGenres.size());
+                    allGenres.add(genre);
+                }
+            } else if((genreMask & ~allGenresMask) != 0) {
+                allGenres.add(genre);
+                allGenresMask |= genreMask;
+            }
+        }
+        return allGenresMask;
+    }
+
+    private int genreId(String genre) {
+        int genreMask = Utils.genreToMask(genre);
+        return genreMask == 0 ? unknownGenres.get(genre) : Integer.numberOfTrailingZeros(genreMask);
+    }
+
+    // The ids of the genres of the video, each once
+    private int[] genreIds(Video video) {
+        int mask = video.getGenreMask();
+        int[] ids = new int[Integer.bitCount(mask)];
+        int size = 0;
+        for(; mask != 0; mask &= mask - 1) {
+            ids[size++] = Integer.numberOfTrailingZeros(mask);
+        }
+        if(!video.hasUnknownGenre()) {
+            return ids;
+        }
+
+        List<String> videoGenres = video.getGenres();
+        for(int i = 0; i < videoGenres.size(); ++i) {
+            String genre = videoGenres.get(i);
+            if(Utils.genreToMask(genre) == 0 && videoGenres.indexOf(genre) == i) {
+                ids = Arrays.copyOf(ids, size + 1);
+                ids[size++] = unknownGenres.get(genre);
+            }
+        }
+        return ids;
+    }
+
+    // Adds the views of the video to each of its genres
+    public void addViews(Video video, int numberOfViews) {
+        if(video.hasUnknownGenre()) {
+            for(int genre: genreIds(video)) {
+                views[genre] += numberOfViews;
+            }
+            return;
+        }
+        for(int mask = video.getGenreMask(); mask != 0; mask &= mask - 1) {
+            views[Integer.numberOfTrailingZeros(mask)] += numberOfViews;
+        }
+    }
+
+    /**
+     * @return the genres of the videos, DESC by number of views
+     */
+    public int[] getGenresByViews() {
+        int[] sorted = genres.clone();
+        // Insertion sort: stable, and there are only a few genres
+        for(int i = 1; i < sorted.length; ++i) {
+            int genre = sorted[i];
+            int j = i - 1;
+            while(j >= 0 && views[sorted[j]] < views[genre]) {
+                sorted[j + 1] = sorted[j];
+                j--;
+            }
+            sorted[j + 1] = genre;
+        }
+        return sorted;
+    }
+
+    // The genre string of the id
+    public String getName(int genre) {
+        if(genre < Genre.values().length) {
+            return Utils.genreToString(Genre.values()[genre]);
+        }
+        for(Map.Entry<String, Integer> unknownGenre: unknownGenres.entrySet()) {
+            if(unknownGenre.getValue() == genre) {
+                return unknownGenre.getKey();
+            }
+        }
+        return null;
+    }
+
+    // Ids of the movies of the genre
+    public BitSet getMovies(int genre) {
+        return moviesByGenre[genre];
+    }
+
+    // Ids of the shows of the genre
+    public BitSet getShows(int genre) {
+        return showsByGenre[genre];
+    }
+}
@@ -0,0 +1,137 @@
+package entities;
+
+import video.Video;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NavigableSet;
+import java.util.TreeSet;
+import java.util.function.Predicate;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Videos kept in the order of the ranked queries on one metric (duration, rating,
+ * views or favorites): by value, then by title, then by position in their list.
+ * <p>
+ * The commands update the entry of a video when its value changes, so a query only
+ * walks the first entries in either direction instead of sorting all the videos.
+ */
+public final class MetricIndex<T extends Video> {
+
+    /** Attributes */
+    private final ToDoubleFunction<T> metric;
+    // Videos with a value of 0 are left out (e.g. the videos without ratings)
+    private final boolean skipZero;
+
+    private final NavigableSet<Entry<T>> entries = new TreeSet<>();
+    // The current entry of every video, null if it is left out
+    private final List<Entry<T>> entriesById;
+
+    /** Constructors */
+    MetricIndex(T[] videosById, ToDoubleFunction<T> metric, boolean skipZero) {
+        this.metric = metric;
+        this.skipZero = skipZero;
+
+        entriesById = new ArrayList<>(videosById.length);
+        for(T video: videosById) {
+            entriesById.add(null);
+            update(video);
+        }
+    }
+
+    // Moves the video to the place of its current value
+    public void update(T video) {
+        double value = metric.applyAsDouble(video);
+        Entry<T> entry = entriesById.get(video.getId());
+        if(entry != null) {
+            if(Double.compare(entry.value, value) == 0) {
+                return;
+            }
+            entries.remove(entry);
+        }
+
+        entry = null;
+        if(!skipZero || value != 0.0) {
+            entry = new Entry<>(value, video.getTitleRank(), video.getId(), video);
+            entries.add(entry);
+        }
+        entriesById.set(video.getId(), entry);
+    }
+
+    // The value of the video on the metric of the index
+    public double valueOf(T video) {
+        return metric.applyAsDouble(video);
+    }
+
+    // False if the video is left out of the index
+    public boolean contains(T video) {
+        return entriesById.get(video.getId()) != null;
+    }
+
+    /**
+     * @param descending DESC order on value and title, otherwise ASC
+     * @param filter the videos to keep
+     * @param number the maximum number of videos returned
+     * @return the first videos that pass the filter, in the order of a sort by title
+     * followed by a stable sort by value
+     */
+    public List<T> first(boolean descending, Predicate<? super T> filter, int number) {
+        List<T> result = new ArrayList<>();
+        if(!descending) {
+            for(Entry<T> entry: entries) {
+                if(result.size() >= number) {
+                    break;
+                }
+                addIfKept(result, entry, filter);
+            }
+            return result;
+        }
+
+        Entry<T> last = entries.isEmpty() ? null : entries.last();
+        while(last != null && result.size() < number) {
+            // Videos with equal values and titles keep the order of their list, as with a stable sort
+            Entry<T> groupFirst = entries.ceiling(new Entry<>(last.value, last.titleRank, Integer.MIN_VALUE, null));
+            for(Entry<T> entry: entries.subSet(groupFirst, true, last, true)) {
+                if(result.size() >= number) {
+                    break;
+                }
+                addIfKept(result, entry, filter);
+            }
+            last = entries.lower(groupFirst);
+        }
+        return result;
+    }
+
+    private static <T extends Video> void addIfKept(List<T> result, Entry<T> entry, Predicate<? super T> filter) {
+        if(filter.test(entry.video)) {
+            result.add(entry.video);
+        }
+    }
+
+    // The value is copied, so the entry can still be found after the video changed
+    private static final class Entry<T> implements Comparable<Entry<T>> {
+        private final double value;
+        private final int titleRank;
+        private final int id;
+        private final T video;
+
+        private Entry(double value, int titleRank, int id, T video) {
+            this.value = value;
+            this.titleRank = titleRank;
+            this.id = id;
+            this.video = video;
+        }
+
+        @Override
+        public int compareTo(Entry<T> other) {
+            int result = Double.compare(value, other.value);
+            if(result == 0) {
+                result = Integer.compare(titleRank, other.titleRank);
+            }
+            if(result == 0) {
+                result = Integer.compare(id, other.id);
+            }
+            return result;
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package entities;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Results of the queries, reused while the data they were computed from is
+ * unchanged. Every kind of change made by the commands has a version, which the
+ * command bumps; a result is only valid at the version it was computed at.
+ * The least recently used results are dropped past {@link #MAX_RESULTS}.
+ */
+public final class QueryCache {
+
+    // What the commands change, and the results depend on
+    public enum Change {
+        VIEWS, FAVORITES, RATINGS
+    }
+
+    private static final int MAX_RESULTS = 1024;
+
+    /** Attributes */
+    private final long[] versions = new long[Change.values().length];
+
+    private final Map<Object, Result> results = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Object, Result> eldest) {
+            return size() > MAX_RESULTS;
+        }
+    };
+
+    /**
+     * @param key the query, with equal keys for the queries with the same result
+     * @return the result, or null if it was not computed or is out of date
+     */
+    public String get(Object key) {
+        Result result = results.get(key);
+        if(result == null) {
+            return null;
+        }
+        if(result.dependsOn != null && result.version != versions[result.dependsOn.ordinal()]) {
+            results.remove(key);
+            return null;
+        }
+        return result.message;
+    }
+
+    /**
+     * @param dependsOn the change that makes the result out of date, null if none does
+     */
+    public void put(Object key, String message, Change dependsOn) {
+        long version = dependsOn == null ? 0 : versions[dependsOn.ordinal()];
+        results.put(key, new Result(message, dependsOn, version));
+    }
+
+    // Called by the commands when they change the data
+    public void bump(Change change) {
+        versions[change.ordinal()]++;
+    }
+
+    private static final class Result {
+        private final String message;
+        private final Change dependsOn;
+        private final long version;
+
+        private Result(String message, Change dependsOn, long version) {
+            this.message = message;
+            this.dependsOn = dependsOn;
+            this.version = version;
+        }
+    }
+}
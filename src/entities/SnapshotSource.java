@@ -0,0 +1,93 @@
+package entities;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Objects;
+import java.util.zip.CRC32C;
+
+/**
+ * The input file a snapshot was converted from: its absolute path, size,
+ * modification time and CRC32C checksum. A snapshot is only reused while all of
+ * them still match, so an input that was edited, or replaced by another file with
+ * an older time, is converted again.
+ */
+public final class SnapshotSource {
+
+    // Largest region of the file mapped at once for the checksum
+    private static final long WINDOW = 1L << 30;
+
+    /** Attributes */
+    private final String path;
+    private final long size;
+    private final long lastModified;
+    private final int checksum;
+
+    /** Constructors */
+    private SnapshotSource(String path, long size, long lastModified, int checksum) {
+        this.path = path;
+        this.size = size;
+        this.lastModified = lastModified;
+        this.checksum = checksum;
+    }
+
+    /**
+     * Takes the stamp of the input file; it has to be taken before the file is read,
+     * so a file changed while it was read doesn't match its snapshot
+     * @param path the absolute path of the input file
+     */
+    public static SnapshotSource of(String path) throws IOException {
+        Path file = Paths.get(path);
+        long lastModified = Files.getLastModifiedTime(file).toMillis();
+        CRC32C crc = new CRC32C();
+        long size;
+        try(FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            size = channel.size();
+            for(long start = 0; start < size; start += WINDOW) {
+                crc.update(channel.map(FileChannel.MapMode.READ_ONLY, start,
+                        Math.min(WINDOW, size - start)));
+            }
+        }
+        return new SnapshotSource(path, size, lastModified, (int) crc.getValue());
+    }
+
+    /** Header of the snapshot */
+    void write(DataOutput out) throws IOException {
+        out.writeUTF(path);
+        out.writeLong(size);
+        out.writeLong(lastModified);
+        out.writeInt(checksum);
+    }
+
+    static SnapshotSource read(DataInput in) throws IOException {
+        return new SnapshotSource(in.readUTF(), in.readLong(), in.readLong(), in.readInt());
+    }
+
+    /** Getters */
+    public String getPath() {
+        return path;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if(this == o) {
+            return true;
+        }
+        if(!(o instanceof SnapshotSource)) {
+            return false;
+        }
+        SnapshotSource that = (SnapshotSource) o;
+        return size == that.size && lastModified == that.lastModified
+                && checksum == that.checksum && path.equals(that.path);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(path, size, lastModified, checksum);
+    }
+}
@@ -0,0 +1,64 @@
+package entities;
+
+import video.Video;
+
+import java.util.function.ToDoubleFunction;
+
+/**
+ * The ordered indexes of the movies (or of the shows), one for every metric of
+ * the video queries, and of their years and genres. The commands call the update
+ * of the metric they change.
+ */
+public final class VideoIndexes<T extends Video> {
+
+    /** Attributes */
+    private final MetricIndex<T> byDuration;
+    private final MetricIndex<T> byRating;
+    private final MetricIndex<T> byViews;
+    private final MetricIndex<T> byFavorites;
+    private final FilterIndex filters;
+
+    /** Constructors */
+    VideoIndexes(T[] videosById, ToDoubleFunction<T> duration, ToDoubleFunction<T> rating) {
+        byDuration = new MetricIndex<>(videosById, duration, false);
+        // Only the rated videos are ranked by rating
+        byRating = new MetricIndex<>(videosById, rating, true);
+        byViews = new MetricIndex<>(videosById, Video::getNumberOfViews, false);
+        byFavorites = new MetricIndex<>(videosById, Video::getFavoriteCount, false);
+        filters = new FilterIndex(videosById);
+    }
+
+    /** Getters */
+    public MetricIndex<T> getByDuration() {
+        return byDuration;
+    }
+
+    public MetricIndex<T> getByRating() {
+        return byRating;
+    }
+
+    public MetricIndex<T> getByViews() {
+        return byViews;
+    }
+
+    public MetricIndex<T> getByFavorites() {
+        return byFavorites;
+    }
+
+    public FilterIndex getFilters() {
+        return filters;
+    }
+
+    /** Updates */
+    public void updateRating(T video) {
+        byRating.update(video);
+    }
+
+    public void updateViews(T video) {
+        byViews.update(video);
+    }
+
+    public void updateFavorites(T video) {
+        byFavorites.update(video);
+    }
+}
@@ -0,0 +1,56 @@
+package fileio;
+
+import common.Constants;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Collects the objects sent by a streaming loader into the lists of an {@link Input}
+ */
+final class InputCollector implements InputListener {
+    private final List<ActorInputData> actors = new ArrayList<>();
+    private final List<UserInputData> users = new ArrayList<>();
+    private final List<MovieInputData> movies = new ArrayList<>();
+    private final List<SerialInputData> serials = new ArrayList<>();
+    private final List<ActionInputData> actions = new ArrayList<>();
+
+    @Override
+    public void onActor(final ActorInputData actor) {
+        actors.add(actor);
+    }
+
+    @Override
+    public void onUser(final UserInputData user) {
+        users.add(user);
+    }
+
+    @Override
+    public void onMovie(final MovieInputData movie) {
+        movies.add(movie);
+    }
+
+    @Override
+    public void onSerial(final SerialInputData serial) {
+        serials.add(serial);
+    }
+
+    @Override
+    public void onAction(final ActionInputData action) {
+        actions.add(action);
+    }
+
+    /**
+     * @param sectionsRead the sections found in the file; like {@link InputLoader},
+     *                     the lists of the missing ones are null
+     * @return the collected input
+     */
+    Input toInput(final Set<String> sectionsRead) {
+        return new Input(sectionsRead.contains(Constants.ACTORS) ? actors : null,
+                sectionsRead.contains(Constants.USERS) ? users : null,
+                sectionsRead.contains(Constants.ACTIONS) ? actions : null,
+                sectionsRead.contains(Constants.MOVIES) ? movies : null,
+                sectionsRead.contains(Constants.SHOWS) ? serials : null);
+    }
+}
@@ -0,0 +1,44 @@
+package fileio;
+
+import java.io.IOException;
+
+/**
+ * Receives the entities and the actions of an input file, one by one,
+ * as soon as they are read by the {@link StreamingInputLoader}
+ */
+public interface InputListener {
+    /**
+     * Called for every entry of the "actors" array
+     * @param actor the actor that was just read
+     * @throws IOException if the listener fails to handle it
+     */
+    void onActor(ActorInputData actor) throws IOException;
+
+    /**
+     * Called for every entry of the "users" array
+     * @param user the user that was just read
+     * @throws IOException if the listener fails to handle it
+     */
+    void onUser(UserInputData user) throws IOException;
+
+    /**
+     * Called for every entry of the "movies" array
+     * @param movie the movie that was just read
+     * @throws IOException if the listener fails to handle it
+     */
+    void onMovie(MovieInputData movie) throws IOException;
+
+    /**
+     * Called for every entry of the "shows" array
+     * @param serial the serial that was just read
+     * @throws IOException if the listener fails to handle it
+     */
+    void onSerial(SerialInputData serial) throws IOException;
+
+    /**
+     * Called for every entry of the "actions" array
+     * @param action the action that was just read
+     * @throws IOException if the listener fails to handle it
+     */
+    void onAction(ActionInputData action) throws IOException;
+}
@@ -0,0 +1,32 @@
+package fileio;
+
+import java.io.IOException;
+
+/**
+ * A loader that sends the entities and the actions of an input file to an
+ * {@link InputListener} as soon as they are read
+ */
+public interface InputSource {
+    /**
+     * @return the path to the input file
+     */
+    String getInputPath();
+
+    /**
+     * Parses the input file and sends every entity and action to the listener,
+     * in the order in which they appear in the file
+     * @param listener receiver of the parsed objects
+     * @throws IOException in case of exceptions to reading
+     */
+    void stream(InputListener listener) throws IOException;
+
+    /**
+     * Parses only the actions of the input file, skipping the database, whose
+     * entities the listener already has (e.g. from a snapshot)
+     * @param listener receiver of the parsed actions
+     * @param databaseSize the size of the largest section of the database, the
+     *                     default limit of the queries
+     * @throws IOException in case of exceptions to reading
+     */
+    void streamActions(InputListener listener, int databaseSize) throws IOException;
+}
@@ -0,0 +1,489 @@
+package fileio;
+
+import actor.ActorsAwards;
+import common.Constants;
+import entertainment.Season;
+import utils.Utils;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Builds the input objects from the tokens of a test file. The conversion is the
+ * same for every {@link JsonTokenSource}, so the loaders only differ in how they
+ * tokenize the file.
+ * <p>
+ * The "database" object has to precede the "actions" array (as in every test file),
+ * because the default query limit depends on the size of the database.
+ */
+final class InputTokenReader {
+    static final JsonKey DATABASE = new JsonKey(Constants.DATABASE);
+    static final JsonKey ACTIONS = new JsonKey(Constants.ACTIONS);
+    static final JsonKey ACTORS = new JsonKey(Constants.ACTORS);
+    static final JsonKey USERS = new JsonKey(Constants.USERS);
+    static final JsonKey MOVIES = new JsonKey(Constants.MOVIES);
+    static final JsonKey SHOWS = new JsonKey(Constants.SHOWS);
+    private static final JsonKey NAME = new JsonKey(Constants.NAME);
+    private static final JsonKey USERNAME = new JsonKey(Constants.USERNAME);
+    private static final JsonKey DESCRIPTION = new JsonKey(Constants.DESCRIPTION);
+    private static final JsonKey FILMOGRAPHY = new JsonKey(Constants.FILMOGRAPHY);
+    private static final JsonKey AWARDS = new JsonKey(Constants.AWARDS);
+    private static final JsonKey AWARD_TYPE = new JsonKey(Constants.AWARD_TYPE);
+    private static final JsonKey NUMBER_OF_AWARDS = new JsonKey(Constants.NUMBER_OF_AWARDS);
+    private static final JsonKey SUBSCRIPTION = new JsonKey(Constants.SUBSCRIPTION);
+    private static final JsonKey HISTORY = new JsonKey(Constants.HISTORY);
+    private static final JsonKey NUMBER_VIEWS = new JsonKey(Constants.NUMBER_VIEWS);
+    private static final JsonKey FAVORITE_MOVIES = new JsonKey(Constants.FAVORITE_MOVIES);
+    private static final JsonKey GENRES = new JsonKey(Constants.GENRES);
+    private static final JsonKey YEAR = new JsonKey(Constants.YEAR);
+    private static final JsonKey DURATION = new JsonKey(Constants.DURATION);
+    private static final JsonKey CAST = new JsonKey(Constants.CAST);
+    private static final JsonKey NUMBER_OF_SEASONS = new JsonKey(Constants.NUMBER_OF_SEASONS);
+    private static final JsonKey SEASONS = new JsonKey(Constants.SEASONS);
+    private static final JsonKey CURRENT_SEASON = new JsonKey(Constants.CURRENT_SEASON);
+    private static final JsonKey ID = new JsonKey(Constants.ID);
+    private static final JsonKey ACTION_TYPE = new JsonKey(Constants.ACTION_TYPE);
+    private static final JsonKey TYPE = new JsonKey(Constants.TYPE);
+    private static final JsonKey USER = new JsonKey(Constants.USER);
+    private static final JsonKey TITLE = new JsonKey(Constants.TITLE);
+    private static final JsonKey OBJECT = new JsonKey(Constants.OBJECT);
+    private static final JsonKey SORT = new JsonKey(Constants.SORT);
+    private static final JsonKey CRITERIA = new JsonKey(Constants.CRITERIA);
+    private static final JsonKey GENRE = new JsonKey(Constants.GENRE);
+    private static final JsonKey NUMBER = new JsonKey(Constants.NUMBER);
+    private static final JsonKey SEASON = new JsonKey(Constants.SEASON);
+    private static final JsonKey GRADE = new JsonKey(Constants.GRADE);
+    private static final JsonKey FILTERS = new JsonKey(Constants.FILTERS);
+    private static final JsonKey WORDS = new JsonKey(Constants.WORDS);
+    /**
+     * The path to the input file
+     */
+    private final String inputPath;
+    /**
+     * Names of the database arrays found in the file
+     */
+    private final Set<String> sectionsRead;
+
+    InputTokenReader(final String inputPath, final Set<String> sectionsRead) {
+        this.inputPath = inputPath;
+        this.sectionsRead = sectionsRead;
+    }
+
+    /**
+     * Reads the whole file and sends every entity and action to the listener,
+     * in the order in which they appear in the file
+     * @param tokens the tokens of the file, positioned before the root object
+     * @param listener receiver of the parsed objects
+     * @param knownDatabaseSize the default query limit if the database should be
+     *                          skipped, or a negative value to read it
+     * @throws IOException in case of exceptions to reading
+     */
+    void read(final JsonTokenSource tokens, final InputListener listener,
+              final int knownDatabaseSize) throws IOException {
+        sectionsRead.clear();
+        tokens.beginObject();
+
+        int databaseSize = -1;
+        while (tokens.hasNext()) {
+            tokens.readKey();
+            if (tokens.keyIs(DATABASE) && tokens.isObject()) {
+                if (knownDatabaseSize >= 0) {
+                    tokens.skipValue();
+                    databaseSize = knownDatabaseSize;
+                } else {
+                    databaseSize = readDatabase(tokens, listener);
+                }
+            } else if (tokens.keyIs(ACTIONS) && tokens.isArray()) {
+                if (databaseSize < 0) {
+                    throw new IllegalStateException("The actions of " + inputPath
+                            + " precede the database");
+                }
+                sectionsRead.add(Constants.ACTIONS);
+                tokens.beginArray();
+                while (tokens.hasNext()) {
+                    ActionInputData action = readAction(tokens, databaseSize);
+                    if (action != null) {
+                        listener.onAction(action);
+                    }
+                }
+            } else {
+                tokens.skipValue();
+            }
+        }
+
+        if (!sectionsRead.contains(Constants.ACTIONS)) {
+            System.out.println("NU EXISTA COMENZI");
+        }
+    }
+
+
+    /**
+     * Reads the "database" object
+     * @return the default limit of the queries: the size of the largest section
+     */
+    private int readDatabase(final JsonTokenSource tokens,
+                             final InputListener listener) throws IOException {
+        int actors = 0;
+        int users = 0;
+        int videos = 0;
+
+        tokens.beginObject();
+        while (tokens.hasNext()) {
+            tokens.readKey();
+            if (!tokens.isArray()) {
+                tokens.skipValue();
+                continue;
+            }
+
+            if (tokens.keyIs(ACTORS)) {
+                tokens.beginArray();
+                while (tokens.hasNext()) {
+                    listener.onActor(readActor(tokens));
+                    actors++;
+                }
+                sectionsRead.add(Constants.ACTORS);
+            } else if (tokens.keyIs(USERS)) {
+                tokens.beginArray();
+                while (tokens.hasNext()) {
+                    listener.onUser(readUser(tokens));
+                    users++;
+                }
+                sectionsRead.add(Constants.USERS);
+            } else if (tokens.keyIs(MOVIES)) {
+                tokens.beginArray();
+                while (tokens.hasNext()) {
+                    listener.onMovie(readMovie(tokens));
+                    videos++;
+                }
+                sectionsRead.add(Constants.MOVIES);
+            } else if (tokens.keyIs(SHOWS)) {
+                tokens.beginArray();
+                while (tokens.hasNext()) {
+                    listener.onSerial(readSerial(tokens));
+                    videos++;
+                }
+                sectionsRead.add(Constants.SHOWS);
+            } else {
+                tokens.skipValue();
+            }
+        }
+
+        if (!sectionsRead.contains(Constants.ACTORS)) {
+            System.out.println("NU EXISTA ACTORI");
+        }
+        if (!sectionsRead.contains(Constants.USERS)) {
+            System.out.println("NU EXISTA UTILIZATORI");
+        }
+        if (!sectionsRead.contains(Constants.SHOWS)) {
+            System.out.println("NU EXISTA SERIALE");
+        }
+        if (!sectionsRead.contains(Constants.MOVIES)) {
+            System.out.println("NU EXISTA FILME");
+        }
+
+        return Math.max(Math.max(videos, users), actors);
+    }
+
+    static ActorInputData readActor(final JsonTokenSource tokens) throws IOException {
+        String name = null;
+        String description = null;
+        ArrayList<String> filmography = null;
+        Map<ActorsAwards, Integer> awards = new LinkedHashMap<>();
+
+        tokens.beginObject();
+        while (tokens.hasNext()) {
+            tokens.readKey();
+            if (tokens.keyIs(NAME)) {
+                name = tokens.readString();
+            } else if (tokens.keyIs(DESCRIPTION)) {
+                description = tokens.readString();
+            } else if (tokens.keyIs(FILMOGRAPHY)) {
+                filmography = readStringArray(tokens);
+            } else if (tokens.keyIs(AWARDS) && tokens.isArray()) {
+                readAwards(tokens, awards);
+            } else {
+                tokens.skipValue();
+            }
+        }
+
+        return new ActorInputData(name, description, filmography, awards);
+    }
+
+    private static void readAwards(final JsonTokenSource tokens,
+                            final Map<ActorsAwards, Integer> awards) throws IOException {
+        tokens.beginArray();
+        while (tokens.hasNext()) {
+            ActorsAwards award = null;
+            int numberOfAwards = 0;
+
+            tokens.beginObject();
+            while (tokens.hasNext()) {
+                tokens.readKey();
+                if (tokens.keyIs(AWARD_TYPE)) {
+                    award = Utils.stringToAwards(tokens.readString());
+                } else if (tokens.keyIs(NUMBER_OF_AWARDS)) {
+                    numberOfAwards = tokens.readInt();
+                } else {
+                    tokens.skipValue();
+                }
+            }
+            awards.put(award, numberOfAwards);
+        }
+    }
+
+    static UserInputData readUser(final JsonTokenSource tokens) throws IOException {
+        String username = null;
+        String subscription = null;
+        Map<String, Integer> history = new LinkedHashMap<>();
+        boolean hasHistory = false;
+        ArrayList<String> favorites = null;
+
+        tokens.beginObject();
+        while (tokens.hasNext()) {
+            tokens.readKey();
+            if (tokens.keyIs(USERNAME)) {
+                username = tokens.readString();
+            } else if (tokens.keyIs(SUBSCRIPTION)) {
+                subscription = tokens.readString();
+            } else if (tokens.keyIs(HISTORY) && tokens.isArray()) {
+                readHistory(tokens, history);
+                hasHistory = true;
+            } else if (tokens.keyIs(FAVORITE_MOVIES)) {
+                favorites = readStringArray(tokens);
+            } else {
+                tokens.skipValue();
+            }
+        }
+
+        if (!hasHistory) {
+            System.out.println("NU ESTE VIZIONAT NICIUN FILM");
+        }
+
+        return new UserInputData(username, subscription, history, favorites);
+    }
+
+    private static void readHistory(final JsonTokenSource tokens,
+                             final Map<String, Integer> history) throws IOException {
+        tokens.beginArray();
+        while (tokens.hasNext()) {
+            String name = null;
+            int views = 0;
+
+            tokens.beginObject();
+            while (tokens.hasNext()) {
+                tokens.readKey();
+                if (tokens.keyIs(NAME)) {
+                    name = tokens.readString();
+                } else if (tokens.keyIs(NUMBER_VIEWS)) {
+                    views = tokens.readInt();
+                } else {
+                    tokens.skipValue();
+                }
+            }
+            history.put(name, views);
+        }
+    }
+
+    static MovieInputData readMovie(final JsonTokenSource tokens) throws IOException {
+        String name = null;
+        ArrayList<String> cast = null;
+        ArrayList<String> genres = null;
+        int year = 0;
+        int duration = 0;
+
+        tokens.beginObject();
+        while (tokens.hasNext()) {
+            tokens.readKey();
+            if (tokens.keyIs(NAME)) {
+                name = tokens.readString();
+            } else if (tokens.keyIs(ACTORS)) {
+                cast = readStringArray(tokens);
+            } else if (tokens.keyIs(GENRES)) {
+                genres = readStringArray(tokens);
+            } else if (tokens.keyIs(YEAR)) {
+                year = tokens.readInt();
+            } else if (tokens.keyIs(DURATION)) {
+                duration = tokens.readInt();
+            } else {
+                tokens.skipValue();
+            }
+        }
+
+        return new MovieInputData(name, cast, genres, year, duration);
+    }
+
+    static SerialInputData readSerial(final JsonTokenSource tokens) throws IOException {
+        String name = null;
+        ArrayList<String> cast = null;
+        ArrayList<String> genres = null;
+        int numberOfSeasons = 0;
+        ArrayList<Season> seasons = null;
+        int year = 0;
+
+        tokens.beginObject();
+        while (tokens.hasNext()) {
+            tokens.readKey();
+            if (tokens.keyIs(NAME)) {
+                name = tokens.readString();
+            } else if (tokens.keyIs(CAST)) {
+                cast = readStringArray(tokens);
+            } else if (tokens.keyIs(GENRES)) {
+                genres = readStringArray(tokens);
+            } else if (tokens.keyIs(NUMBER_OF_SEASONS)) {
+                numberOfSeasons = tokens.readInt();
+            } else if (tokens.keyIs(SEASONS) && tokens.isArray()) {
+                seasons = readSeasons(tokens);
+            } else if (tokens.keyIs(YEAR)) {
+                year = tokens.readInt();
+            } else {
+                tokens.skipValue();
+            }
+        }
+
+        return new SerialInputData(name, cast, genres, numberOfSeasons, seasons, year);
+    }
+
+    private static ArrayList<Season> readSeasons(final JsonTokenSource tokens) throws IOException {
+        ArrayList<Season> seasons = new ArrayList<>();
+
+        tokens.beginArray();
+        while (tokens.hasNext()) {
+            int currentSeason = 0;
+            int duration = 0;
+
+            tokens.beginObject();
+            while (tokens.hasNext()) {
+                tokens.readKey();
+                if (tokens.keyIs(CURRENT_SEASON)) {
+                    currentSeason = tokens.readInt();
+                } else if (tokens.keyIs(DURATION)) {
+                    duration = tokens.readInt();
+                } else {
+                    tokens.skipValue();
+                }
+            }
+            seasons.add(new Season(currentSeason, duration));
+        }
+        return seasons;
+    }
+
+    /**
+     * Reads one object of the "actions" array
+     * @param tokens positioned on the start of the object
+     * @param size the default query limit
+     * @return the action or null if the action type is unknown
+     */
+    static ActionInputData readAction(final JsonTokenSource tokens, final int size)
+            throws IOException {
+        int id = 0;
+        String actionType = null;
+        String type = null;
+        String user = null;
+        String username = null;
+        String title = null;
+        String objectType = null;
+        String sortType = null;
+        String criteria = null;
+        String genre = null;
+        int number = size;
+        int season = 0;
+        double grade = 0;
+
+        String filterYear = null;
+        String filterGenre = null;
+        ArrayList<String> words = null;
+        ArrayList<String> awards = null;
+
+        tokens.beginObject();
+        while (tokens.hasNext()) {
+            tokens.readKey();
+            if (tokens.keyIs(ID)) {
+                id = tokens.readInt();
+            } else if (tokens.keyIs(ACTION_TYPE)) {
+                actionType = tokens.readString();
+            } else if (tokens.keyIs(TYPE)) {
+                type = tokens.readString();
+            } else if (tokens.keyIs(USER)) {
+                user = tokens.readString();
+            } else if (tokens.keyIs(USERNAME)) {
+                username = tokens.readString();
+            } else if (tokens.keyIs(TITLE)) {
+                title = tokens.readString();
+            } else if (tokens.keyIs(OBJECT)) {
+                objectType = tokens.readString();
+            } else if (tokens.keyIs(SORT)) {
+                sortType = tokens.readString();
+            } else if (tokens.keyIs(CRITERIA)) {
+                criteria = tokens.readString();
+            } else if (tokens.keyIs(GENRE)) {
+                genre = tokens.readString();
+            } else if (tokens.keyIs(NUMBER)) {
+                if (!tokens.readNull()) {
+                    number = tokens.readInt();
+                }
+            } else if (tokens.keyIs(SEASON)) {
+                if (!tokens.readNull()) {
+                    season = tokens.readInt();
+                }
+            } else if (tokens.keyIs(GRADE)) {
+                if (!tokens.readNull()) {
+                    grade = tokens.readDouble();
+                }
+            } else if (tokens.keyIs(FILTERS) && tokens.isObject()) {
+                tokens.beginObject();
+                while (tokens.hasNext()) {
+                    tokens.readKey();
+                    if (tokens.keyIs(YEAR)) {
+                        filterYear = tokens.readString();
+                    } else if (tokens.keyIs(GENRE)) {
+                        filterGenre = tokens.readString();
+                    } else if (tokens.keyIs(WORDS)) {
+                        words = readStringArray(tokens);
+                    } else if (tokens.keyIs(AWARDS)) {
+                        awards = readStringArray(tokens);
+                    } else {
+                        tokens.skipValue();
+                    }
+                }
+            } else {
+                tokens.skipValue();
+            }
+        }
+
+        if (actionType == null) {
+            return null;
+        }
+
+        return switch (actionType) {
+            case Constants.COMMAND -> new ActionInputData(id, actionType,
+                    type, user, title, grade, season);
+            case Constants.QUERY -> new ActionInputData(id, actionType,
+                    objectType, filterGenre, sortType, criteria, filterYear, number,
+                    words, awards);
+            case Constants.RECOMMENDATION -> new ActionInputData(id,
+                    actionType, type, username, genre);
+            default -> null;
+        };
+    }
+
+    /**
+     * Reads the next array of strings
+     * @return the strings, or null if the value is not an array
+     */
+    private static ArrayList<String> readStringArray(final JsonTokenSource tokens)
+            throws IOException {
+        if (!tokens.isArray()) {
+            tokens.skipValue();
+            return null;
+        }
+
+        ArrayList<String> values = new ArrayList<>();
+        tokens.beginArray();
+        while (tokens.hasNext()) {
+            values.add(tokens.readString());
+        }
+        return values;
+    }}
@@ -0,0 +1,139 @@
+package fileio;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.IOException;
+
+/**
+ * {@link JsonTokenSource} over the jackson-core tokenizer
+ */
+final class JacksonTokenSource implements JsonTokenSource {
+    private final JsonParser parser;
+    /**
+     * The token the source is positioned before, or null if it was not fetched yet
+     */
+    private JsonToken pending;
+    private String key;
+
+    JacksonTokenSource(final JsonParser parser) {
+        this.parser = parser;
+    }
+
+    /**
+     * @return the next token, without consuming it
+     */
+    private JsonToken peek() throws IOException {
+        if (pending == null) {
+            pending = parser.nextToken();
+            if (pending == null) {
+                throw new IOException("Unexpected end of file at "
+                        + parser.getCurrentLocation());
+            }
+        }
+        return pending;
+    }
+
+    /**
+     * Consumes the next token, which becomes the current token of the parser
+     */
+    private JsonToken consume() throws IOException {
+        JsonToken token = peek();
+        pending = null;
+        return token;
+    }
+
+    private void expect(final JsonToken expected) throws IOException {
+        JsonToken token = consume();
+        if (token != expected) {
+            throw new IOException("Expected " + expected + " but found " + token
+                    + " at " + parser.getCurrentLocation());
+        }
+    }
+
+    @Override
+    public void beginObject() throws IOException {
+        expect(JsonToken.START_OBJECT);
+    }
+
+    @Override
+    public void beginArray() throws IOException {
+        expect(JsonToken.START_ARRAY);
+    }
+
+    @Override
+    public boolean isObject() throws IOException {
+        return peek() == JsonToken.START_OBJECT;
+    }
+
+    @Override
+    public boolean isArray() throws IOException {
+        return peek() == JsonToken.START_ARRAY;
+    }
+
+    @Override
+    public boolean hasNext() throws IOException {
+        JsonToken token = peek();
+        if (token == JsonToken.END_OBJECT || token == JsonToken.END_ARRAY) {
+            consume();
+            return false;
+        }
+        return true;
+    }
+
+    @Override
+    public void readKey() throws IOException {
+        expect(JsonToken.FIELD_NAME);
+        key = parser.getCurrentName();
+    }
+
+    @Override
+    public boolean keyIs(final JsonKey expected) {
+        return expected.getName().equals(key);
+    }
+
+    @Override
+    public boolean readNull() throws IOException {
+        if (peek() != JsonToken.VALUE_NULL) {
+            return false;
+        }
+        consume();
+        return true;
+    }
+
+    @Override
+    public String readString() throws IOException {
+        JsonToken token = consume();
+        if (token == JsonToken.VALUE_NULL) {
+            return null;
+        }
+        if (token.isStructStart()) {
+            parser.skipChildren();
+            return null;
+        }
+        return parser.getText();
+    }
+
+    @Override
+    public int readInt() throws IOException {
+        consume();
+        return Integer.parseInt(parser.getText());
+    }
+
+    @Override
+    public double readDouble() throws IOException {
+        consume();
+        return Double.parseDouble(parser.getText());
+    }
+
+    @Override
+    public void skipValue() throws IOException {
+        consume();
+        parser.skipChildren();
+    }
+
+    @Override
+    public void close() throws IOException {
+        parser.close();
+    }
+}
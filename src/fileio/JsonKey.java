@@ -0,0 +1,25 @@
+package fileio;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * A field name of the input files, kept both as a String and as UTF-8 bytes, so
+ * that every {@link JsonTokenSource} can match it without converting the key it read
+ */
+final class JsonKey {
+    private final String name;
+    private final byte[] bytes;
+
+    JsonKey(final String name) {
+        this.name = name;
+        this.bytes = name.getBytes(StandardCharsets.UTF_8);
+    }
+
+    String getName() {
+        return name;
+    }
+
+    byte[] getBytes() {
+        return bytes;
+    }
+}
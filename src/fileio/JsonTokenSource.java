@@ -0,0 +1,78 @@
+package fileio;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Pull-style access to the tokens of a JSON file, shared by the streaming and the
+ * memory-mapped loaders so that both build their objects with the same
+ * {@link InputTokenReader}.
+ * <p>
+ * The source is positioned before a value: {@link #isObject()} and {@link #isArray()}
+ * look at it, the read methods consume it. Inside an object every value is preceded
+ * by {@link #readKey()}.
+ */
+interface JsonTokenSource extends Closeable {
+    /**
+     * Consumes the '{' of the next value
+     */
+    void beginObject() throws IOException;
+
+    /**
+     * Consumes the '[' of the next value
+     */
+    void beginArray() throws IOException;
+
+    /**
+     * @return true if the next value is an object
+     */
+    boolean isObject() throws IOException;
+
+    /**
+     * @return true if the next value is an array
+     */
+    boolean isArray() throws IOException;
+
+    /**
+     * Moves to the next element of the current array or object
+     * @return false (after consuming the closing bracket) if there are no more elements
+     */
+    boolean hasNext() throws IOException;
+
+    /**
+     * Reads the next key of the current object
+     */
+    void readKey() throws IOException;
+
+    /**
+     * @return true if the last key read is the given one
+     */
+    boolean keyIs(JsonKey key);
+
+    /**
+     * Consumes the literal null, if it is the next value
+     * @return true if the value was null
+     */
+    boolean readNull() throws IOException;
+
+    /**
+     * @return the next value as text (numbers and literals as written), null for a
+     * JSON null or for an array or object, which is skipped
+     */
+    String readString() throws IOException;
+
+    /**
+     * @return the next value, a number or a quoted number, as an int
+     */
+    int readInt() throws IOException;
+
+    /**
+     * @return the next value, a number or a quoted number, as a double
+     */
+    double readDouble() throws IOException;
+
+    /**
+     * Skips the next value, whatever its type
+     */
+    void skipValue() throws IOException;
+}
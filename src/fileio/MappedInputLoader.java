@@ -0,0 +1,85 @@
+package fileio;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Reads the data from the tests through a memory map of the input file.
+ * <p>
+ * The bytes are decoded in place by a {@link MappedJsonReader}: keys are matched
+ * without being decoded, numbers are parsed from the mapped bytes and only the
+ * titles, names and other stored values become Strings. The objects are built by
+ * the same {@link InputTokenReader} as in the {@link StreamingInputLoader}.
+ */
+public final class MappedInputLoader implements InputSource {
+    /**
+     * The path to the input file
+     */
+    private final String inputPath;
+    /**
+     * Names of the database arrays found in the last parsed file
+     */
+    private final Set<String> sectionsRead = new HashSet<>();
+
+    public MappedInputLoader(final String inputPath) {
+        this.inputPath = inputPath;
+    }
+
+    @Override
+    public String getInputPath() {
+        return inputPath;
+    }
+
+    /**
+     * The method reads the database
+     * @return an Input object, equal to the one returned by {@link InputLoader#readData()}
+     */
+    public Input readData() {
+        InputCollector collector = new InputCollector();
+        try {
+            stream(collector);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+
+        return collector.toInput(sectionsRead);
+    }
+
+    /**
+     * Parses the mapped input file and sends every entity and action to the listener,
+     * in the order in which they appear in the file
+     * @param listener receiver of the parsed objects
+     * @throws IOException in case of exceptions to reading
+     */
+    @Override
+    public void stream(final InputListener listener) throws IOException {
+        stream(listener, -1);
+    }
+
+    /**
+     * Parses only the actions of the mapped input file, skipping the database
+     * @param listener receiver of the parsed actions
+     * @param databaseSize the size of the largest section of the database, the
+     *                     default limit of the queries
+     * @throws IOException in case of exceptions to reading
+     */
+    @Override
+    public void streamActions(final InputListener listener,
+                              final int databaseSize) throws IOException {
+        stream(listener, databaseSize);
+    }
+
+    private void stream(final InputListener listener,
+                        final int knownDatabaseSize) throws IOException {
+        try (FileChannel channel = FileChannel.open(Paths.get(inputPath),
+                StandardOpenOption.READ);
+             JsonTokenSource tokens = new MappedJsonReader(channel)) {
+            new InputTokenReader(inputPath, sectionsRead).read(tokens, listener,
+                    knownDatabaseSize);
+        }
+    }
+}
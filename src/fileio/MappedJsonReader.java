@@ -0,0 +1,660 @@
+package fileio;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Minimal JSON tokenizer working directly on a memory-mapped file.
+ * <p>
+ * Field names are compared byte by byte against pre-encoded keys and numbers are
+ * decoded straight from the mapped bytes, so only the values that are returned by
+ * {@link #readString()} become Strings. Files larger than the mapping window are
+ * mapped window after window.
+ * <p>
+ * The elements of the arrays and objects that are read have to be separated by
+ * commas; the values passed to {@link #skipValue()} are only checked for balanced
+ * brackets and terminated strings, so that skipping the database stays a plain scan.
+ */
+final class MappedJsonReader implements JsonTokenSource {
+    /**
+     * Largest region of the file mapped at once
+     */
+    private static final long WINDOW = 1L << 30;
+    private static final int HEX = 16;
+    private static final int SCRATCH_SIZE = 256;
+    private static final int DEPTH = 16;
+    /**
+     * Longest run of digits that always fits a long
+     */
+    private static final int LONG_DIGITS = 18;
+    private static final byte[] TRUE = {'t', 'r', 'u', 'e'};
+    private static final byte[] FALSE = {'f', 'a', 'l', 's', 'e'};
+    private static final byte[] NULL = {'n', 'u', 'l', 'l'};
+    private static final byte[][] LITERALS = {TRUE, FALSE, NULL};
+    /**
+     * Eight copies of a byte, to look for it in eight bytes at once
+     */
+    private static final long QUOTES = 0x2222222222222222L;
+    private static final long BACKSLASHES = 0x5C5C5C5C5C5C5C5CL;
+    private static final long OPENING_BRACES = 0x7B7B7B7B7B7B7B7BL;
+    private static final long CLOSING_BRACES = 0x7D7D7D7D7D7D7D7DL;
+    private static final long BRACKET_BITS = 0x2020202020202020L;
+    private static final long LOW_BITS = 0x0101010101010101L;
+    private static final long HIGH_BITS = 0x8080808080808080L;
+
+    private final FileChannel channel;
+    /**
+     * Offset right after the last byte that may be read
+     */
+    private final long end;
+    private long windowStart;
+    private MappedByteBuffer buffer;
+
+    /**
+     * Bytes of the last key or string, unescaped
+     */
+    private byte[] scratch = new byte[SCRATCH_SIZE];
+    private int scratchLength;
+    /**
+     * Surrogates escaped in the last string and the offsets of the scratch buffer
+     * they go at: UTF-8 can't hold an unpaired one, which json-simple keeps as it is
+     */
+    private char[] surrogates = new char[2];
+    private int[] surrogateOffsets = new int[2];
+    private int surrogateCount;
+
+    /**
+     * The arrays and objects being read: their opening bracket and whether an
+     * element was already read, after which the next one needs a comma
+     */
+    private byte[] openBrackets = new byte[DEPTH];
+    private boolean[] started = new boolean[DEPTH];
+    private int depth;
+
+    MappedJsonReader(final FileChannel channel) throws IOException {
+        this(channel, 0, channel.size());
+    }
+
+    /**
+     * Reads only a region of the file
+     * @param start offset of the first byte of the region
+     * @param end offset right after the last byte of the region
+     */
+    MappedJsonReader(final FileChannel channel, final long start, final long end)
+            throws IOException {
+        this.channel = channel;
+        this.end = end;
+        map(start);
+    }
+
+    private void map(final long start) throws IOException {
+        windowStart = start;
+        buffer = channel.map(FileChannel.MapMode.READ_ONLY, start,
+                Math.min(WINDOW, end - start));
+        // The first byte of a word is its lowest one, see skipValue
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    /**
+     * @return the offset in the file of the next byte to be read
+     */
+    long position() {
+        return windowStart + buffer.position();
+    }
+
+    /**
+     * @return the next byte of the file, or -1 at the end of the file
+     */
+    private int next() throws IOException {
+        if (!buffer.hasRemaining()) {
+            long windowEnd = windowStart + buffer.limit();
+            if (windowEnd >= end) {
+                return -1;
+            }
+            map(windowEnd);
+        }
+        return buffer.get() & 0xFF;
+    }
+
+    /**
+     * @return the next byte without consuming it, or -1 at the end of the file
+     */
+    private int peek() throws IOException {
+        if (buffer.hasRemaining()) {
+            return buffer.get(buffer.position()) & 0xFF;
+        }
+        int b = next();
+        if (b >= 0) {
+            buffer.position(buffer.position() - 1);
+        }
+        return b;
+    }
+
+    /**
+     * @return the next non-whitespace byte without consuming it
+     */
+    private int peekToken() throws IOException {
+        while (true) {
+            int position = buffer.position();
+            int limit = buffer.limit();
+            while (position < limit) {
+                byte b = buffer.get(position);
+                if (b != ' ' && b != '\n' && b != '\r' && b != '\t') {
+                    buffer.position(position);
+                    return b & 0xFF;
+                }
+                position++;
+            }
+            buffer.position(limit);
+            if (peek() < 0) {
+                return -1;
+            }
+        }
+    }
+
+    private void expect(final char c) throws IOException {
+        int b = peekToken();
+        if (b != c) {
+            throw error("Expected '" + c + "'");
+        }
+        next();
+    }
+
+    private IOException error(final String message) {
+        return new IOException(message + " at offset " + position());
+    }
+
+    @Override
+    public void beginObject() throws IOException {
+        expect('{');
+        open('{');
+    }
+
+    @Override
+    public void beginArray() throws IOException {
+        expect('[');
+        open('[');
+    }
+
+    /**
+     * Starts reading a region that holds some elements of an array, without its
+     * brackets: they are read as the elements of an array, calling {@link #hasNext()}
+     * once before each of them
+     */
+    void beginElements() {
+        open('[');
+    }
+
+    private void open(final char bracket) {
+        if (depth == openBrackets.length) {
+            openBrackets = Arrays.copyOf(openBrackets, depth * 2);
+            started = Arrays.copyOf(started, depth * 2);
+        }
+        openBrackets[depth] = (byte) bracket;
+        started[depth++] = false;
+    }
+
+    @Override
+    public boolean isObject() throws IOException {
+        return peekToken() == '{';
+    }
+
+    @Override
+    public boolean isArray() throws IOException {
+        return peekToken() == '[';
+    }
+
+    @Override
+    public boolean hasNext() throws IOException {
+        if (depth == 0) {
+            throw error("Not inside an array or object");
+        }
+        int b = peekToken();
+        if (b == ']' || b == '}') {
+            if (b != (openBrackets[depth - 1] == '{' ? '}' : ']')) {
+                throw error("Mismatched '" + (char) b + "'");
+            }
+            next();
+            depth--;
+            return false;
+        }
+        if (b < 0) {
+            throw error("Unexpected end of file");
+        }
+        if (!started[depth - 1]) {
+            started[depth - 1] = true;
+            return true;
+        }
+        if (b != ',') {
+            throw error("Expected ','");
+        }
+        next();
+        b = peekToken();
+        if (b == ']' || b == '}') {
+            throw error("Trailing ','");
+        }
+        return true;
+    }
+
+    /**
+     * Reads the next key of the current object (and its ':') into the scratch buffer
+     */
+    @Override
+    public void readKey() throws IOException {
+        if (openBrackets[depth - 1] != '{') {
+            throw error("Expected a value");
+        }
+        readRawString();
+        expect(':');
+    }
+
+    @Override
+    public boolean keyIs(final JsonKey expected) {
+        byte[] key = expected.getBytes();
+        if (key.length != scratchLength || surrogateCount != 0) {
+            return false;
+        }
+        for (int i = 0; i < scratchLength; i++) {
+            if (scratch[i] != key[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public boolean readNull() throws IOException {
+        if (peekToken() != 'n') {
+            return false;
+        }
+        readLiteral();
+        return true;
+    }
+
+    /**
+     * @return the next value as a String; numbers and true/false are returned as
+     * their text, arrays and objects are skipped
+     */
+    @Override
+    public String readString() throws IOException {
+        int b = peekToken();
+        if (b == '"') {
+            readRawString();
+        } else if (b == 't' || b == 'f' || b == 'n') {
+            if (readLiteral() == NULL) {
+                return null;
+            }
+        } else if (b == '{' || b == '[') {
+            skipValue();
+            return null;
+        } else {
+            readNumberBytes();
+        }
+        return scratchString();
+    }
+
+    /**
+     * Decodes the scratch buffer, with the escaped surrogates at their offsets
+     */
+    private String scratchString() {
+        if (surrogateCount == 0) {
+            return new String(scratch, 0, scratchLength, StandardCharsets.UTF_8);
+        }
+        StringBuilder result = new StringBuilder(scratchLength);
+        int start = 0;
+        for (int i = 0; i < surrogateCount; i++) {
+            result.append(new String(scratch, start, surrogateOffsets[i] - start,
+                    StandardCharsets.UTF_8));
+            result.append(surrogates[i]);
+            start = surrogateOffsets[i];
+        }
+        result.append(new String(scratch, start, scratchLength - start, StandardCharsets.UTF_8));
+        return result.toString();
+    }
+
+    /**
+     * Decodes an integer, given either as a number or as a quoted number,
+     * without creating a String
+     */
+    @Override
+    public int readInt() throws IOException {
+        if (peekToken() == '"') {
+            readRawString();
+        } else {
+            readNumberBytes();
+        }
+
+        int i = 0;
+        boolean negative = false;
+        if (scratchLength > 0 && scratch[0] == '-') {
+            negative = true;
+            i++;
+        }
+        if (i == scratchLength) {
+            throw error("Expected a number");
+        }
+
+        // Accumulated as a negative number, whose range holds Integer.MIN_VALUE
+        int value = 0;
+        for (; i < scratchLength; i++) {
+            int digit = scratch[i] - '0';
+            if (digit < 0 || digit > 9) {
+                throw error("Expected an integer");
+            }
+            if (value < (Integer.MIN_VALUE + digit) / 10) {
+                throw error("Integer out of range");
+            }
+            value = value * 10 - digit;
+        }
+        if (!negative && value == Integer.MIN_VALUE) {
+            throw error("Integer out of range");
+        }
+        return negative ? value : -value;
+    }
+
+    /**
+     * Decodes a number; only fractional or exponent notations go through a String
+     */
+    @Override
+    public double readDouble() throws IOException {
+        if (peekToken() == '"') {
+            readRawString();
+        } else {
+            readNumberBytes();
+        }
+
+        boolean fitsLong = scratchLength <= LONG_DIGITS;
+        for (int i = 0; i < scratchLength && fitsLong; i++) {
+            byte c = scratch[i];
+            fitsLong = c != '.' && c != 'e' && c != 'E';
+        }
+        if (!fitsLong) {
+            return Double.parseDouble(
+                    new String(scratch, 0, scratchLength, StandardCharsets.US_ASCII));
+        }
+        return readIntFromScratch();
+    }
+
+    private double readIntFromScratch() throws IOException {
+        long value = 0;
+        int i = 0;
+        boolean negative = scratchLength > 0 && scratch[0] == '-';
+        if (negative || (scratchLength > 0 && scratch[0] == '+')) {
+            i++;
+        }
+        for (; i < scratchLength; i++) {
+            int digit = scratch[i] - '0';
+            if (digit < 0 || digit > 9) {
+                throw error("Expected a number");
+            }
+            value = value * 10 + digit;
+        }
+        return negative ? -value : value;
+    }
+
+    /**
+     * Skips the next value, whatever its type
+     */
+    @Override
+    public void skipValue() throws IOException {
+        int b = peekToken();
+        if (b == '{' || b == '[') {
+            next();
+            int depth = 1;
+            boolean inString = false;
+            boolean escaped = false;
+            while (depth > 0) {
+                if (peek() < 0) {
+                    throw error("Unexpected end of file");
+                }
+                // Scan the mapped window without going through next()
+                int position = buffer.position();
+                int limit = buffer.limit();
+                while (position < limit && depth > 0) {
+                    // Jump eight bytes at a time to the next byte that matters
+                    if (!escaped) {
+                        while (position + Long.BYTES <= limit) {
+                            long word = buffer.getLong(position);
+                            long found = inString ? stringEnds(word) : structure(word);
+                            if (found != 0) {
+                                position += Long.numberOfTrailingZeros(found) >>> 3;
+                                break;
+                            }
+                            position += Long.BYTES;
+                        }
+                        if (position == limit) {
+                            break;
+                        }
+                    }
+                    byte c = buffer.get(position++);
+                    if (inString) {
+                        if (escaped) {
+                            escaped = false;
+                        } else if (c == '\\') {
+                            escaped = true;
+                        } else if (c == '"') {
+                            inString = false;
+                        }
+                    } else if (c == '"') {
+                        inString = true;
+                    } else if (c == '{' || c == '[') {
+                        depth++;
+                    } else if (c == '}' || c == ']') {
+                        depth--;
+                    }
+                }
+                buffer.position(position);
+            }
+        } else if (b == '"') {
+            next();
+            skipStringBody();
+        } else if (b == 't' || b == 'f' || b == 'n') {
+            readLiteral();
+        } else {
+            readNumberBytes();
+        }
+    }
+
+    /**
+     * @return the high bit of the quotes and backslashes among eight bytes read in
+     * little-endian order; the lowest one is exact, the ones above it may not be
+     */
+    private static long stringEnds(final long bytes) {
+        return zeroBytes(bytes ^ QUOTES) | zeroBytes(bytes ^ BACKSLASHES);
+    }
+
+    /**
+     * @return the high bit of the quotes and brackets among eight bytes, as
+     * {@link #stringEnds}; setting the 0x20 bit turns '[' and ']' into '{' and '}'
+     * and no other byte into them
+     */
+    private static long structure(final long bytes) {
+        long braces = bytes | BRACKET_BITS;
+        return zeroBytes(bytes ^ QUOTES) | zeroBytes(braces ^ OPENING_BRACES)
+                | zeroBytes(braces ^ CLOSING_BRACES);
+    }
+
+    private static long zeroBytes(final long bytes) {
+        return (bytes - LOW_BITS) & ~bytes & HIGH_BITS;
+    }
+
+    private void skipStringBody() throws IOException {
+        int c = next();
+        while (c != '"') {
+            if (c < 0) {
+                throw error("Unterminated string");
+            }
+            if (c == '\\') {
+                next();
+            }
+            c = next();
+        }
+    }
+
+    /**
+     * Reads one of the literals true, false or null into the scratch buffer
+     * @return the literal that was read
+     */
+    private byte[] readLiteral() throws IOException {
+        scratchLength = 0;
+        surrogateCount = 0;
+        peekToken();
+        int b = peek();
+        while (b >= 'a' && b <= 'z') {
+            append((byte) next());
+            b = peek();
+        }
+        for (byte[] literal : LITERALS) {
+            if (Arrays.equals(literal, 0, literal.length, scratch, 0, scratchLength)) {
+                return literal;
+            }
+        }
+        throw error("Invalid literal");
+    }
+
+    /**
+     * The channel belongs to the caller, which may still read other regions of it
+     */
+    @Override
+    public void close() {
+    }
+
+    private void readNumberBytes() throws IOException {
+        scratchLength = 0;
+        surrogateCount = 0;
+        int b = peekToken();
+        while ((b >= '0' && b <= '9') || b == '-' || b == '+' || b == '.'
+                || b == 'e' || b == 'E') {
+            append((byte) next());
+            b = peek();
+        }
+        if (scratchLength == 0) {
+            throw error("Expected a value");
+        }
+    }
+
+    /**
+     * Reads the next quoted string into the scratch buffer, resolving the escapes
+     */
+    private void readRawString() throws IOException {
+        expect('"');
+        scratchLength = 0;
+        surrogateCount = 0;
+
+        while (true) {
+            // Copy the plain run of bytes at once
+            int start = buffer.position();
+            int position = start;
+            int limit = buffer.limit();
+            byte b = 0;
+            while (position < limit) {
+                b = buffer.get(position);
+                if (b == '"' || b == '\\') {
+                    break;
+                }
+                position++;
+            }
+            appendRun(start, position - start);
+            buffer.position(position);
+
+            int c = next();
+            if (c == '"') {
+                return;
+            }
+            if (c == '\\') {
+                readEscape();
+            } else if (c < 0) {
+                throw error("Unterminated string");
+            } else {
+                // The run ended with the window
+                append((byte) c);
+            }
+        }
+    }
+
+    private void appendRun(final int start, final int length) {
+        if (length == 0) {
+            return;
+        }
+        ensureScratch(scratchLength + length);
+        buffer.get(start, scratch, scratchLength, length);
+        scratchLength += length;
+    }
+
+    private void readEscape() throws IOException {
+        int c = next();
+        switch (c) {
+            case '"', '\\', '/' -> append((byte) c);
+            case 'b' -> append((byte) '\b');
+            case 'f' -> append((byte) '\f');
+            case 'n' -> append((byte) '\n');
+            case 'r' -> append((byte) '\r');
+            case 't' -> append((byte) '\t');
+            case 'u' -> {
+                char unit = (char) readHex();
+                if (Character.isSurrogate(unit)) {
+                    // Each half of a pair is kept on its own, so the two make the pair again
+                    appendSurrogate(unit);
+                } else {
+                    appendCodePoint(unit);
+                }
+            }
+            default -> throw error("Invalid escape");
+        }
+    }
+
+    private int readHex() throws IOException {
+        int value = 0;
+        for (int i = 0; i < 4; i++) {
+            int digit = Character.digit(next(), HEX);
+            if (digit < 0) {
+                throw error("Invalid unicode escape");
+            }
+            value = value * HEX + digit;
+        }
+        return value;
+    }
+
+    /**
+     * Appends a character that is not a surrogate, encoded as UTF-8
+     */
+    private void appendCodePoint(final int codePoint) {
+        ensureScratch(scratchLength + 3);
+        if (codePoint < 0x80) {
+            scratch[scratchLength++] = (byte) codePoint;
+        } else if (codePoint < 0x800) {
+            scratch[scratchLength++] = (byte) (0xC0 | (codePoint >> 6));
+            scratch[scratchLength++] = (byte) (0x80 | (codePoint & 0x3F));
+        } else {
+            scratch[scratchLength++] = (byte) (0xE0 | (codePoint >> 12));
+            scratch[scratchLength++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+            scratch[scratchLength++] = (byte) (0x80 | (codePoint & 0x3F));
+        }
+    }
+
+    private void appendSurrogate(final char unit) {
+        if (surrogateCount == surrogates.length) {
+            surrogates = Arrays.copyOf(surrogates, surrogateCount * 2);
+            surrogateOffsets = Arrays.copyOf(surrogateOffsets, surrogateCount * 2);
+        }
+        surrogates[surrogateCount] = unit;
+        surrogateOffsets[surrogateCount++] = scratchLength;
+    }
+
+    private void append(final byte b) {
+        ensureScratch(scratchLength + 1);
+        scratch[scratchLength++] = b;
+    }
+
+    private void ensureScratch(final int capacity) {
+        if (capacity > scratch.length) {
+            byte[] larger = new byte[Math.max(capacity, scratch.length * 2)];
+            System.arraycopy(scratch, 0, larger, 0, scratchLength);
+            scratch = larger;
+        }
+    }
+}
@@ -0,0 +1,337 @@
+package fileio;
+
+import common.Constants;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Reads the data from the tests, parsing parts of the memory-mapped file at the same time.
+ * <p>
+ * The calling thread walks the file once, only skipping the elements of the actors,
+ * users, movies, shows and actions arrays to find where each one ends. Every run of
+ * elements of about a megabyte is handed to a bounded pool as soon as it is
+ * found, where it is parsed by its own {@link MappedJsonReader} with the readers of
+ * {@link InputTokenReader}, so the large sections are parsed by all the threads while
+ * the rest of the file is still being walked. The parsed elements are then sent to the
+ * listener in the order of the file, so the produced objects are the same as the ones
+ * of the sequential loaders.
+ * <p>
+ * The "database" object has to precede the "actions" array (as in every test file),
+ * because the default query limit depends on the size of the database.
+ */
+public final class ParallelInputLoader implements InputSource {
+    /**
+     * Bytes of elements parsed by one task, by default
+     */
+    private static final long CHUNK_BYTES = 1L << 20;
+
+    /**
+     * The path to the input file
+     */
+    private final String inputPath;
+    /**
+     * Number of threads of the pool
+     */
+    private final int threads;
+    /**
+     * Bytes of elements parsed by one task
+     */
+    private final long chunkBytes;
+    /**
+     * Names of the database arrays found in the last parsed file
+     */
+    private final Set<String> sectionsRead = new HashSet<>();
+
+    public ParallelInputLoader(final String inputPath) {
+        this(inputPath, Runtime.getRuntime().availableProcessors());
+    }
+
+    public ParallelInputLoader(final String inputPath, final int threads) {
+        this(inputPath, threads, CHUNK_BYTES);
+    }
+
+    public ParallelInputLoader(final String inputPath, final int threads,
+                               final long chunkBytes) {
+        this.inputPath = inputPath;
+        this.threads = Math.max(1, threads);
+        this.chunkBytes = Math.max(1, chunkBytes);
+    }
+
+    @Override
+    public String getInputPath() {
+        return inputPath;
+    }
+
+    /**
+     * The method reads the database
+     * @return an Input object, equal to the one returned by {@link InputLoader#readData()}
+     */
+    public Input readData() {
+        InputCollector collector = new InputCollector();
+        try {
+            stream(collector);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+
+        return collector.toInput(sectionsRead);
+    }
+
+    /**
+     * Parses the input file and sends every entity and action to the listener,
+     * in the order in which they appear in the file
+     * @param listener receiver of the parsed objects
+     * @throws IOException in case of exceptions to reading
+     */
+    @Override
+    public void stream(final InputListener listener) throws IOException {
+        stream(listener, -1);
+    }
+
+    /**
+     * Parses only the actions of the input file, skipping the database
+     * @param listener receiver of the parsed actions
+     * @param databaseSize the size of the largest section of the database, the
+     *                     default limit of the queries
+     * @throws IOException in case of exceptions to reading
+     */
+    @Override
+    public void streamActions(final InputListener listener,
+                              final int databaseSize) throws IOException {
+        stream(listener, databaseSize);
+    }
+
+    private void stream(final InputListener listener,
+                        final int knownDatabaseSize) throws IOException {
+        sectionsRead.clear();
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try (FileChannel channel = FileChannel.open(Paths.get(inputPath),
+                StandardOpenOption.READ)) {
+            List<Chunk<?>> chunks = split(channel, pool, knownDatabaseSize);
+            for (Chunk<?> chunk : chunks) {
+                chunk.deliver(listener);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        if (!sectionsRead.contains(Constants.ACTIONS)) {
+            System.out.println("NU EXISTA COMENZI");
+        }
+    }
+
+    /**
+     * Walks the file, submitting the parsing of every run of elements
+     * @return the runs, in the order of the file
+     */
+    private List<Chunk<?>> split(final FileChannel channel, final ExecutorService pool,
+                                 final int knownDatabaseSize) throws IOException {
+        List<Chunk<?>> chunks = new ArrayList<>();
+        MappedJsonReader reader = new MappedJsonReader(channel);
+        reader.beginObject();
+
+        int databaseSize = -1;
+        while (reader.hasNext()) {
+            reader.readKey();
+            if (reader.keyIs(InputTokenReader.DATABASE) && reader.isObject()) {
+                if (knownDatabaseSize >= 0) {
+                    reader.skipValue();
+                    databaseSize = knownDatabaseSize;
+                } else {
+                    databaseSize = splitDatabase(reader, channel, pool, chunks);
+                }
+            } else if (reader.keyIs(InputTokenReader.ACTIONS) && reader.isArray()) {
+                if (databaseSize < 0) {
+                    throw new IllegalStateException("The actions of " + inputPath
+                            + " precede the database");
+                }
+                sectionsRead.add(Constants.ACTIONS);
+                int size = databaseSize;
+                splitSection(reader, channel, pool, chunks,
+                        tokens -> InputTokenReader.readAction(tokens, size),
+                        InputListener::onAction);
+            } else {
+                reader.skipValue();
+            }
+        }
+        return chunks;
+    }
+
+    /**
+     * Walks the "database" object
+     * @return the default limit of the queries: the size of the largest section
+     */
+    private int splitDatabase(final MappedJsonReader reader, final FileChannel channel,
+                              final ExecutorService pool, final List<Chunk<?>> chunks)
+            throws IOException {
+        int actors = 0;
+        int users = 0;
+        int videos = 0;
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+            reader.readKey();
+            if (!reader.isArray()) {
+                reader.skipValue();
+                continue;
+            }
+
+            if (reader.keyIs(InputTokenReader.ACTORS)) {
+                actors += splitSection(reader, channel, pool, chunks,
+                        InputTokenReader::readActor, InputListener::onActor);
+                sectionsRead.add(Constants.ACTORS);
+            } else if (reader.keyIs(InputTokenReader.USERS)) {
+                users += splitSection(reader, channel, pool, chunks,
+                        InputTokenReader::readUser, InputListener::onUser);
+                sectionsRead.add(Constants.USERS);
+            } else if (reader.keyIs(InputTokenReader.MOVIES)) {
+                videos += splitSection(reader, channel, pool, chunks,
+                        InputTokenReader::readMovie, InputListener::onMovie);
+                sectionsRead.add(Constants.MOVIES);
+            } else if (reader.keyIs(InputTokenReader.SHOWS)) {
+                videos += splitSection(reader, channel, pool, chunks,
+                        InputTokenReader::readSerial, InputListener::onSerial);
+                sectionsRead.add(Constants.SHOWS);
+            } else {
+                reader.skipValue();
+            }
+        }
+
+        if (!sectionsRead.contains(Constants.ACTORS)) {
+            System.out.println("NU EXISTA ACTORI");
+        }
+        if (!sectionsRead.contains(Constants.USERS)) {
+            System.out.println("NU EXISTA UTILIZATORI");
+        }
+        if (!sectionsRead.contains(Constants.SHOWS)) {
+            System.out.println("NU EXISTA SERIALE");
+        }
+        if (!sectionsRead.contains(Constants.MOVIES)) {
+            System.out.println("NU EXISTA FILME");
+        }
+
+        return Math.max(Math.max(videos, users), actors);
+    }
+
+    /**
+     * Skips the elements of the array starting at the current position, submitting
+     * them in runs of about chunkBytes
+     * @return the number of elements of the array
+     */
+    private <T> int splitSection(final MappedJsonReader reader,
+                                        final FileChannel channel,
+                                        final ExecutorService pool,
+                                        final List<Chunk<?>> chunks,
+                                        final ElementReader<T> elementReader,
+                                        final Delivery<T> delivery) throws IOException {
+        int size = 0;
+        long start = 0;
+        int elements = 0;
+
+        reader.beginArray();
+        while (reader.hasNext()) {
+            if (elements == 0) {
+                start = reader.position();
+            }
+            reader.skipValue();
+            elements++;
+            size++;
+
+            if (reader.position() - start >= chunkBytes) {
+                chunks.add(submit(pool, channel, start, reader.position(), elements,
+                        elementReader, delivery));
+                elements = 0;
+            }
+        }
+        if (elements > 0) {
+            // The region ends before the closing bracket, which hasNext consumed
+            chunks.add(submit(pool, channel, start, reader.position() - 1, elements,
+                    elementReader, delivery));
+        }
+        return size;
+    }
+
+    private static <T> Chunk<T> submit(final ExecutorService pool, final FileChannel channel,
+                                       final long start, final long end, final int elements,
+                                       final ElementReader<T> elementReader,
+                                       final Delivery<T> delivery) {
+        return new Chunk<>(pool.submit(() -> {
+            List<T> values = new ArrayList<>(elements);
+            MappedJsonReader reader = new MappedJsonReader(channel, start, end);
+            reader.beginElements();
+            for (int i = 0; i < elements; i++) {
+                reader.hasNext();
+                T value = elementReader.read(reader);
+                if (value != null) {
+                    values.add(value);
+                }
+            }
+            return values;
+        }), delivery);
+    }
+
+    /**
+     * Parses one element of a section
+     */
+    private interface ElementReader<T> {
+        T read(JsonTokenSource tokens) throws IOException;
+    }
+
+    /**
+     * Sends one element of a section to the listener
+     */
+    private interface Delivery<T> {
+        void deliver(InputListener listener, T element) throws IOException;
+    }
+
+    /**
+     * A run of elements of a section, being parsed by the pool
+     */
+    private static final class Chunk<T> {
+        private final Future<List<T>> values;
+        private final Delivery<T> delivery;
+
+        Chunk(final Future<List<T>> values, final Delivery<T> delivery) {
+            this.values = values;
+            this.delivery = delivery;
+        }
+
+        /**
+         * Waits for the elements and sends them to the listener
+         */
+        void deliver(final InputListener listener) throws IOException {
+            List<T> parsed;
+            try {
+                parsed = values.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while parsing");
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof IOException) {
+                    throw (IOException) cause;
+                }
+                if (cause instanceof RuntimeException) {
+                    throw (RuntimeException) cause;
+                }
+                throw new IOException(cause);
+            }
+
+            for (T value : parsed) {
+                delivery.deliver(listener, value);
+            }
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package fileio;
+
+import com.fasterxml.jackson.core.JsonFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Reads the data from the tests with a single pass of the jackson-core tokenizer.
+ * <p>
+ * Unlike {@link InputLoader}, no JSON tree of the whole file is built: every actor,
+ * user, movie, serial and action is created by the {@link InputTokenReader} as soon
+ * as its object was read and then handed over to an {@link InputListener}. The
+ * produced objects are the same as the ones built by {@link InputLoader#readData()}.
+ */
+public final class StreamingInputLoader implements InputSource {
+    /**
+     * The path to the input file
+     */
+    private final String inputPath;
+    /**
+     * Names of the database arrays found in the last parsed file
+     */
+    private final Set<String> sectionsRead = new HashSet<>();
+
+    public StreamingInputLoader(final String inputPath) {
+        this.inputPath = inputPath;
+    }
+
+    @Override
+    public String getInputPath() {
+        return inputPath;
+    }
+
+    /**
+     * The method reads the database, keeping only the converted input objects in memory
+     * @return an Input object, equal to the one returned by {@link InputLoader#readData()}
+     */
+    public Input readData() {
+        InputCollector collector = new InputCollector();
+        try {
+            stream(collector);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+
+        return collector.toInput(sectionsRead);
+    }
+
+    /**
+     * Parses the input file and sends every entity and action to the listener,
+     * in the order in which they appear in the file
+     * @param listener receiver of the parsed objects
+     * @throws IOException in case of exceptions to reading
+     */
+    @Override
+    public void stream(final InputListener listener) throws IOException {
+        stream(listener, -1);
+    }
+
+    /**
+     * Parses only the actions of the input file, skipping the database, whose
+     * entities the listener already has (e.g. from a snapshot)
+     * @param listener receiver of the parsed actions
+     * @param databaseSize the size of the largest section of the database, the
+     *                     default limit of the queries
+     * @throws IOException in case of exceptions to reading
+     */
+    @Override
+    public void streamActions(final InputListener listener,
+                              final int databaseSize) throws IOException {
+        stream(listener, databaseSize);
+    }
+
+    private void stream(final InputListener listener,
+                        final int knownDatabaseSize) throws IOException {
+        JsonFactory factory = new JsonFactory();
+        try (JsonTokenSource tokens = new JacksonTokenSource(
+                factory.createParser(new File(inputPath)))) {
+            new InputTokenReader(inputPath, sectionsRead).read(tokens, listener,
+                    knownDatabaseSize);
+        }
+    }
+}
@@ -1,29 +1,26 @@
 package main;
 
-import actions.ProcessAction;
-import actor.Actor;
+import actions.ActionPipeline;
+import actions.JsonFileSink;
+import actions.ResultSink;
 import checker.Checkstyle;
 import checker.Checker;
 import common.Constants;
-import entities.Entities;
 import fileio.*;
-import org.json.simple.JSONArray;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
-import java.util.List;
+import java.util.HexFormat;
 import java.util.Objects;
 import java.util.concurrent.TimeUnit;
 
-import converters.*;
-
-import user.User;
-import video.*;
-
 /**
  * The entry point to this homework. It runs the checker that tests your implementation.
  */
@@ -73,49 +70,63 @@ public final class Main {
      */
     public static void action(final String filePath1,
                               final String filePath2) throws IOException {
-        InputLoader inputLoader = new InputLoader(filePath1);
-        Input input = inputLoader.readData();
-
-        /** Convert to my classes */
-        // Movies
-        MovieInputConverter.convert(input.getMovies());
-        List<Movie> movies = MovieInputConverter.getObjMovies();
-
-        // Shows
-        ShowInputConverter.convert(input.getSerials());
-        List<Show> shows = ShowInputConverter.getObjShows();
-
-        // Actors
-        ActorInputConverter.convert(input.getActors(), movies, shows);
-        List<Actor> actors = ActorInputConverter.getObjActors();
+        // Open the output file; each result is written as soon as it's produced
+        ResultSink results = new JsonFileSink(filePath2);
 
-        // Users
-        UserInputConverter.convert(input.getUsers(), movies, shows);
-        List<User> users = UserInputConverter.getObjUsers();
-
-        // Encapsulate users, actors, movies, shows
-        Entities entities = new Entities(actors, users, movies, shows);
-
-
-        // Create the writer to the output file
-        Writer fileWriter = new Writer(filePath2);
-        JSONArray jsonArrayOutput = new JSONArray();
-
-        // Process actions
-        List<ActionInputData> actions = input.getCommands();
-        ProcessAction.process(actions, entities, jsonArrayOutput, fileWriter);
+        // Convert the database (or load it from the snapshot of the input file)
+        // and process each action as soon as it is read
+        ActionPipeline pipeline = new ActionPipeline(results);
+        pipeline.run(inputLoader(filePath1), snapshotPath(filePath1));
 
         // Close the output file
-        fileWriter.closeJSON(jsonArrayOutput);
+        results.close();
 
         // Clear everything
-        movies.clear();
-        shows.clear();
-        actors.clear();
-        users.clear();
+        pipeline.clear();
 
         // Extra protection measure - Bad usage
         // System.gc();
         // Runtime.getRuntime().gc();
     }
+
+    /**
+     * @param filePath for input file
+     * @return the loader chosen by the loader property: the memory-mapped one, the
+     * parallel one, or the jackson streaming one by default
+     */
+    private static InputSource inputLoader(final String filePath) {
+        String loader = System.getProperty(Constants.LOADER_PROPERTY);
+        if (Constants.MAPPED_LOADER.equals(loader)) {
+            return new MappedInputLoader(filePath);
+        }
+        if (Constants.PARALLEL_LOADER.equals(loader)) {
+            return new ParallelInputLoader(filePath);
+        }
+        return new StreamingInputLoader(filePath);
+    }
+
+    /**
+     * @param filePath for input file
+     * @return the path of the snapshot of its database, in the temporary directory,
+     * named after the file and the SHA-256 digest of its absolute path
+     * @throws IOException in case of exceptions to creating the snapshots directory
+     */
+    private static String snapshotPath(final String filePath) throws IOException {
+        Path directory = Paths.get(System.getProperty("java.io.tmpdir"),
+                Constants.SNAPSHOT_DIRECTORY);
+        Files.createDirectories(directory);
+        File file = new File(filePath).getAbsoluteFile();
+
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            // Every Java platform has to provide SHA-256
+            throw new IllegalStateException(e);
+        }
+        String pathDigest = HexFormat.of().formatHex(
+                digest.digest(file.getPath().getBytes(StandardCharsets.UTF_8)));
+        return directory.resolve(file.getName() + "." + pathDigest
+                + Constants.SNAPSHOT_EXTENSION).toString();
+    }
 }
@@ -1,34 +1,47 @@
 package user;
 
+import common.Constants;
+import utils.IntDoubleMap;
+import utils.IntIntMap;
 import video.Movie;
 import video.Show;
 import video.Season;
 
 import java.util.ArrayList;
-import java.util.Map;
+import java.util.BitSet;
 
 public class User {
 
     /** Attributes */
+    // Position of the user among the users
+    private int id = Constants.NO_ID;
     private String username;
+    // Position of the username in the sorted usernames of all the users; equal usernames share it
+    private int usernameRank;
     private String subscriptionType;
 
-    private final Map<Movie, Integer> moviesHistory;
-    private final Map<Show, Integer> showsHistory;
+    // Movie id / Show id <-> Number of views
+    private final IntIntMap moviesHistory;
+    private final IntIntMap showsHistory;
+    // Ids of the movies / shows in the histories, one bit for each; only built by
+    // the first recommendation that needs them, then kept up to date by the views
+    private BitSet moviesSeen;
+    private BitSet showsSeen;
 
     private final ArrayList<Movie> moviesFavorite;
     private final ArrayList<Show> showsFavorite;
 
-    private final Map<Movie, Double> moviesRating;
-    private final Map<Season, Double> seasonsRating;
+    // Movie id / Season id <-> Grade
+    private final IntDoubleMap moviesRating;
+    private final IntDoubleMap seasonsRating;
 
     private Integer numberOfRatings;
 
     /** Constructors */
     public User(String username, String subscriptionType,
-                Map<Movie, Integer> moviesHistory, Map<Show, Integer> showsHistory,
+                IntIntMap moviesHistory, IntIntMap showsHistory,
                 ArrayList<Movie> moviesFavorite, ArrayList<Show> showsFavorite,
-                Map<Movie, Double> moviesRating, Map<Season, Double> seasonsRating) {
+                IntDoubleMap moviesRating, IntDoubleMap seasonsRating) {
 
         this.username = username;
         this.subscriptionType = subscriptionType;
@@ -45,22 +58,52 @@ public class User {
 
 
     /** Getters */
+    public int getId() {
+        return id;
+    }
+
     public String getUsername() {
         return username;
     }
 
+    public int getUsernameRank() {
+        return usernameRank;
+    }
+
     public String getSubscriptionType() {
         return subscriptionType;
     }
 
-    public Map<Movie, Integer> getMoviesHistory() {
+    public IntIntMap getMoviesHistory() {
         return this.moviesHistory;
     }
 
-    public Map<Show, Integer> getShowsHistory() {
+    public IntIntMap getShowsHistory() {
         return showsHistory;
     }
 
+    public BitSet getMoviesSeen() {
+        if(moviesSeen == null) {
+            moviesSeen = keys(moviesHistory);
+        }
+        return moviesSeen;
+    }
+
+    public BitSet getShowsSeen() {
+        if(showsSeen == null) {
+            showsSeen = keys(showsHistory);
+        }
+        return showsSeen;
+    }
+
+    private static BitSet keys(IntIntMap history) {
+        BitSet keys = new BitSet();
+        for(int key: history.keys()) {
+            keys.set(key);
+        }
+        return keys;
+    }
+
     public ArrayList<Movie> getMoviesFavorite() {
         return moviesFavorite;
     }
@@ -69,11 +112,11 @@ public class User {
         return showsFavorite;
     }
 
-    public Map<Movie, Double> getMoviesRating() {
+    public IntDoubleMap getMoviesRating() {
         return moviesRating;
     }
 
-    public Map<Season, Double> getSeasonRating() {
+    public IntDoubleMap getSeasonRating() {
         return seasonsRating;
     }
 
@@ -81,13 +124,61 @@ public class User {
         return numberOfRatings;
     }
 
+    // The video may be null, when the title isn't a movie (or a show)
+    public boolean hasViewed(Movie movie) {
+        return movie != null && moviesHistory.containsKey(movie.getId());
+    }
+
+    public boolean hasViewed(Show show) {
+        return show != null && showsHistory.containsKey(show.getId());
+    }
+
+    public int getViews(Movie movie) {
+        return moviesHistory.get(movie.getId());
+    }
+
+    public int getViews(Show show) {
+        return showsHistory.get(show.getId());
+    }
+
+    public boolean hasRated(Movie movie) {
+        return moviesRating.containsKey(movie.getId());
+    }
+
+    public boolean hasRated(Season season) {
+        return seasonsRating.containsKey(season.getId());
+    }
+
     /** Setters */
-    public void addMovieRating(Movie movie, Double rating) {
-        this.moviesRating.put(movie, rating);
+    public void setId(int id) {
+        this.id = id;
+    }
+
+    public void setUsernameRank(int usernameRank) {
+        this.usernameRank = usernameRank;
+    }
+
+    // Returns the total number of views of the movie
+    public int addView(Movie movie) {
+        if(moviesSeen != null) {
+            moviesSeen.set(movie.getId());
+        }
+        return moviesHistory.addTo(movie.getId(), 1);
+    }
+
+    public int addView(Show show) {
+        if(showsSeen != null) {
+            showsSeen.set(show.getId());
+        }
+        return showsHistory.addTo(show.getId(), 1);
+    }
+
+    public void addMovieRating(Movie movie, double rating) {
+        this.moviesRating.put(movie.getId(), rating);
     }
 
-    public void addSeasonRating(Season season, Double rating) {
-        this.seasonsRating.put(season, rating);
+    public void addSeasonRating(Season season, double rating) {
+        this.seasonsRating.put(season.getId(), rating);
     }
 
     public void setNumberOfRatings(Integer numberOfRatings) {
@@ -0,0 +1,120 @@
+package utils;
+
+import java.util.Arrays;
+
+/**
+ * Map from int keys to double values, stored in two parallel arrays with open
+ * addressing (linear probing), so no entry and no boxed value is allocated.
+ * Keys must not be negative (they are entity ids); nothing is ever removed.
+ */
+public final class IntDoubleMap {
+    private static final int FREE = -1;
+    private static final int INITIAL_CAPACITY = 4;
+    private static final int[] EMPTY = new int[0];
+    private static final double[] EMPTY_VALUES = new double[0];
+
+    private int[] keys = EMPTY;
+    private double[] values = EMPTY_VALUES;
+    private int size;
+
+    /**
+     * @return the number of keys in the map
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @param key to search for
+     * @return true if the key is in the map
+     */
+    public boolean containsKey(final int key) {
+        return size > 0 && keys[slot(keys, key)] == key;
+    }
+
+    /**
+     * @param key to search for
+     * @return the value of the key, or 0 if the key isn't in the map
+     */
+    public double get(final int key) {
+        if (size == 0) {
+            return 0;
+        }
+        int slot = slot(keys, key);
+        return keys[slot] == key ? values[slot] : 0;
+    }
+
+    /**
+     * Sets the value of a key, adding the key if needed
+     * @param key of the entry
+     * @param value of the entry
+     */
+    public void put(final int key, final double value) {
+        // insert may replace the arrays, so it must run before values is read
+        int slot = insert(key);
+        values[slot] = value;
+    }
+
+    /**
+     * @return a new array with all the keys, in no particular order
+     */
+    public int[] keys() {
+        int[] result = new int[size];
+        int i = 0;
+        for (int key : keys) {
+            if (key != FREE) {
+                result[i++] = key;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @return the slot of the key, or of the free slot where it would be added
+     */
+    private static int slot(final int[] table, final int key) {
+        int mask = table.length - 1;
+        int slot = mix(key) & mask;
+        while (table[slot] != FREE && table[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private static int mix(final int key) {
+        int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    private int insert(final int key) {
+        int slot = keys.length == 0 ? -1 : slot(keys, key);
+        if (slot >= 0 && keys[slot] == key) {
+            return slot;
+        }
+        // Only a new key takes a slot: grow above a load of 3/4
+        if (4 * (size + 1) > 3 * keys.length) {
+            grow();
+            slot = slot(keys, key);
+        }
+        keys[slot] = key;
+        values[slot] = 0.0;
+        size++;
+        return slot;
+    }
+
+    private void grow() {
+        int[] oldKeys = keys;
+        double[] oldValues = values;
+        int capacity = oldKeys.length == 0 ? INITIAL_CAPACITY : oldKeys.length * 2;
+        keys = new int[capacity];
+        values = new double[capacity];
+        Arrays.fill(keys, FREE);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != FREE) {
+                int slot = slot(keys, oldKeys[i]);
+                keys[slot] = oldKeys[i];
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+}
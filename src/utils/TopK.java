@@ -0,0 +1,167 @@
+package utils;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Predicate;
+
+/**
+ * Selects the first k elements of a list in a given order, without sorting the
+ * whole list.
+ * <p>
+ * The result is the same as a stable sort followed by keeping the first k
+ * elements: elements the comparator finds equal keep their order in the list.
+ * A bounded heap holds the best k elements seen so far, with the worst of them
+ * on top, so the selection takes O(n log k).
+ */
+public final class TopK {
+    /**
+     * for coding style
+     */
+    private TopK() {
+    }
+
+    /**
+     * @param elements to select from
+     * @param order in which the elements are ranked
+     * @param k maximum number of elements to select
+     * @return the first k elements, in order
+     */
+    public static <T> List<T> select(final List<? extends T> elements,
+                                     final Comparator<? super T> order, final int k) {
+        return select(elements, element -> true, order, k);
+    }
+
+    /**
+     * @param elements to select from
+     * @param filter keeps only the elements it accepts
+     * @param order in which the elements are ranked
+     * @param k maximum number of elements to select
+     * @return the first k accepted elements, in order
+     */
+    public static <T> List<T> select(final List<? extends T> elements,
+                                     final Predicate<? super T> filter,
+                                     final Comparator<? super T> order, final int k) {
+        int capacity = Math.min(k, elements.size());
+        if (capacity <= 0) {
+            return new ArrayList<>();
+        }
+
+        Heap<T> heap = new Heap<>(order, capacity);
+        for (int position = 0; position < elements.size(); position++) {
+            T element = elements.get(position);
+            if (filter.test(element)) {
+                heap.offer(element, position);
+            }
+        }
+        return heap.toSortedList();
+    }
+
+    /**
+     * Max-heap on "worse than": the top is the element that would come last
+     */
+    private static final class Heap<T> {
+        private final Comparator<? super T> order;
+        private final Object[] elements;
+        private final int[] positions;
+        private int size;
+
+        Heap(final Comparator<? super T> order, final int capacity) {
+            this.order = order;
+            this.elements = new Object[capacity];
+            this.positions = new int[capacity];
+        }
+
+        void offer(final T element, final int position) {
+            if (size < elements.length) {
+                elements[size] = element;
+                positions[size] = position;
+                siftUp(size++);
+            } else if (comesAfter(0, element, position)) {
+                // Later positions lose the ties, so only a strictly better element gets in
+                elements[0] = element;
+                positions[0] = position;
+                siftDown(0);
+            }
+        }
+
+        // Empties the heap, taking the worst remaining element each time
+        List<T> toSortedList() {
+            Object[] sorted = new Object[size];
+            while (size > 0) {
+                sorted[size - 1] = elements[0];
+                size--;
+                elements[0] = elements[size];
+                positions[0] = positions[size];
+                elements[size] = null;
+                siftDown(0);
+            }
+
+            List<T> result = new ArrayList<>(sorted.length);
+            for (Object element : sorted) {
+                result.add(cast(element));
+            }
+            return result;
+        }
+
+        private T elements(final int slot) {
+            return cast(elements[slot]);
+        }
+
+        @SuppressWarnings("unchecked")
+        private T cast(final Object element) {
+            return (T) element;
+        }
+
+        private int compare(final T a, final int positionA, final T b, final int positionB) {
+            int result = order.compare(a, b);
+            return result != 0 ? result : Integer.compare(positionA, positionB);
+        }
+
+        // True if the element in the slot comes after the given element
+        private boolean comesAfter(final int slot, final T element, final int position) {
+            return compare(elements(slot), positions[slot], element, position) > 0;
+        }
+
+        private void siftUp(final int from) {
+            int slot = from;
+            while (slot > 0) {
+                int parent = (slot - 1) / 2;
+                if (!comesAfter(slot, elements(parent), positions[parent])) {
+                    break;
+                }
+                swap(slot, parent);
+                slot = parent;
+            }
+        }
+
+        private void siftDown(final int from) {
+            int slot = from;
+            while (true) {
+                int worst = slot;
+                int left = 2 * slot + 1;
+                int right = left + 1;
+                if (left < size && comesAfter(left, elements(worst), positions[worst])) {
+                    worst = left;
+                }
+                if (right < size && comesAfter(right, elements(worst), positions[worst])) {
+                    worst = right;
+                }
+                if (worst == slot) {
+                    return;
+                }
+                swap(slot, worst);
+                slot = worst;
+            }
+        }
+
+        private void swap(final int a, final int b) {
+            Object element = elements[a];
+            elements[a] = elements[b];
+            elements[b] = element;
+            int position = positions[a];
+            positions[a] = positions[b];
+            positions[b] = position;
+        }
+    }
+}
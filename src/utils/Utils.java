@@ -7,6 +7,7 @@ import org.json.simple.JSONArray;
 import org.json.simple.JSONObject;
 
 import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 import java.util.LinkedHashMap;
 
@@ -53,6 +54,103 @@ public final class Utils {
         };
     }
 
+    /**
+     * Transforms an enum into the string used by the input files
+     * @param genre of video
+     * @return the name of the genre
+     */
+    public static String genreToString(final Genre genre) {
+        return switch (genre) {
+            case ACTION -> "Action";
+            case ADVENTURE -> "Adventure";
+            case DRAMA -> "Drama";
+            case COMEDY -> "Comedy";
+            case CRIME -> "Crime";
+            case ROMANCE -> "Romance";
+            case WAR -> "War";
+            case HISTORY -> "History";
+            case THRILLER -> "Thriller";
+            case MYSTERY -> "Mystery";
+            case FAMILY -> "Family";
+            case HORROR -> "Horror";
+            case FANTASY -> "Fantasy";
+            case SCIENCE_FICTION -> "Science Fiction";
+            case ACTION_ADVENTURE -> "Action & Adventure";
+            case SCI_FI_FANTASY -> "Sci-Fi & Fantasy";
+            case ANIMATION -> "Animation";
+            case KIDS -> "Kids";
+            case WESTERN -> "Western";
+            case TV_MOVIE -> "TV Movie";
+        };
+    }
+
+    /**
+     * Transforms a string into a genre mask, with the bit of its genre set. Only
+     * the exact name of a genre (see genreToString) has a bit, since the videos
+     * are compared with the genre strings as they are
+     * @param genre of video
+     * @return the mask of the genre, or 0 if the string is not the name of a genre
+     */
+    public static int genreToMask(final String genre) {
+        if (genre == null) {
+            return 0;
+        }
+        for (Genre value : Genre.values()) {
+            if (genreToString(value).equals(genre)) {
+                return 1 << value.ordinal();
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * @param genres of video
+     * @return true if one of the strings is not the name of a genre, so it has no bit
+     */
+    public static boolean hasUnknownGenre(final List<String> genres) {
+        if (genres != null) {
+            for (String genre : genres) {
+                if (genreToMask(genre) == 0) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Transforms a list of strings into a genre mask
+     * @param genres of video
+     * @return the mask with the bit of every named genre set
+     */
+    public static int genresToMask(final List<String> genres) {
+        int mask = 0;
+        if (genres != null) {
+            for (String genre : genres) {
+                mask |= genreToMask(genre);
+            }
+        }
+        return mask;
+    }
+
+    /**
+     * Builds the mask used by the genre filter of the queries, which keeps the
+     * videos with a genre containing the given string (e.g. "Action" also
+     * keeps "Action & Adventure"); the strings without a bit are compared by
+     * the caller
+     * @param genre from the filters
+     * @return the mask with the bit of every matching genre set
+     */
+    public static int genreFilterToMask(final String genre) {
+        int mask = 0;
+        for (Genre value : Genre.values()) {
+            if (genreToString(value).contains(genre)) {
+                mask |= 1 << value.ordinal();
+            }
+        }
+        return mask;
+    }
+
     /**
      * Transforms a string into an enum
      * @param award for actors
@@ -9,9 +9,8 @@ public class Movie extends Video {
     /** Attributes */
     private Integer duration;
     private List<Double> ratings;
+    private final RatingSum ratingSum = new RatingSum();
 
-    private Double averageRating;
-    private Integer numberOfViews;
 
     /** Constructors */
     public Movie() {
@@ -29,12 +28,17 @@ public class Movie extends Video {
         return ratings;
     }
 
-    public Double getAverageRating() {
-        return averageRating;
+    public RatingSum getRatingSum() {
+        return ratingSum;
+    }
+
+    // Average of the ratings, or 0 if the movie wasn't rated
+    public double getAverageRating() {
+        return ratingSum.getAverage();
     }
 
     @Override
-    public Integer getFavoriteCount() {
+    public int getFavoriteCount() {
         return super.getFavoriteCount();
     }
 
@@ -62,25 +66,15 @@ public class Movie extends Video {
         return duration;
     }
 
-    public Integer getNumberOfViews() {
-        return numberOfViews;
-    }
-
     /** Setters */
-    public void addRating(Double rating) {
+    public void addRating(double rating) {
         this.ratings.add(rating);
+        this.ratingSum.add(rating);
     }
 
-    public void setAverageRating(Double rating) {
-        this.averageRating = rating;
-    }
-
-    public void setNumberOfViews(Integer numberOfViews) {
-        this.numberOfViews = numberOfViews;
-    }
 
     @Override
-    public void setFavoriteCount(Integer favoriteCount) {
+    public void setFavoriteCount(int favoriteCount) {
         super.setFavoriteCount(favoriteCount);
     }
 }
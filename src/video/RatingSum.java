@@ -0,0 +1,70 @@
+package video;
+
+/**
+ * Running sum and count of the ratings of a movie, a season or the videos of an
+ * actor, so their average is known without walking the ratings.
+ * <p>
+ * The sum is compensated exactly like DoubleStream.average() does it, so the
+ * averages are the same as the ones computed from the list of ratings.
+ */
+public final class RatingSum {
+
+    /** Attributes */
+    private int count;
+    // Ratings of 0, which the averages of the actors don't count
+    private int zeros;
+    // High-order bits of the compensated sum and its low-order (negated) bits
+    private double sum;
+    private double compensation;
+    // Simple sum, only used when the compensated sum overflows
+    private double simpleSum;
+
+    /** Getters */
+    public int getCount() {
+        return count;
+    }
+
+    public int getNonZeroCount() {
+        return count - zeros;
+    }
+
+    public double getSum() {
+        double finalSum = sum - compensation;
+        if(Double.isNaN(finalSum) && Double.isInfinite(simpleSum)) {
+            finalSum = simpleSum;
+        }
+        return finalSum;
+    }
+
+    public double getAverage() {
+        if(count == 0) {
+            return 0.0;
+        }
+        return getSum() / count;
+    }
+
+    /** Setters */
+    public void add(double rating) {
+        count++;
+        if(rating == 0) {
+            zeros++;
+        }
+        compensatedAdd(rating);
+        simpleSum += rating;
+    }
+
+    // Adds all the ratings of the other sum
+    public void add(RatingSum other) {
+        count += other.count;
+        zeros += other.zeros;
+        compensatedAdd(other.getSum());
+        simpleSum += other.simpleSum;
+    }
+
+    private void compensatedAdd(double value) {
+        double tmp = value - compensation;
+        double velvel = sum + tmp;
+        compensation = (velvel - sum) - tmp;
+        sum = velvel;
+    }
+}
@@ -1,22 +1,38 @@
 package video;
 
+import common.Constants;
+
 import java.util.List;
 
 public class Season {
 
     /** Attributes */
+    // Position of the season among the seasons of all the shows
+    private int id = Constants.NO_ID;
     private int currentSeason;
     private int duration;
     private List<Double> ratings;
+    private final RatingSum ratingSum = new RatingSum();
 
     /** Constructors */
     public Season(int currentSeason, int duration, List<Double> ratings) {
         this.currentSeason = currentSeason;
         this.duration = duration;
         this.ratings = ratings;
+        for(Double rating: ratings) {
+            ratingSum.add(rating);
+        }
     }
 
     /** Getters */
+    public int getId() {
+        return id;
+    }
+
+    public int getCurrentSeason() {
+        return currentSeason;
+    }
+
     public int getDuration() {
         return duration;
     }
@@ -25,9 +41,27 @@ public class Season {
         return ratings;
     }
 
+    public RatingSum getRatingSum() {
+        return ratingSum;
+    }
+
+    public boolean hasRatings() {
+        return ratingSum.getCount() != 0;
+    }
+
+    // Average of the ratings, or 0 if the season wasn't rated
+    public double getAverageRating() {
+        return ratingSum.getAverage();
+    }
+
     /** Setters */
-    public void addRating(Double rating) {
+    public void setId(int id) {
+        this.id = id;
+    }
+
+    public void addRating(double rating) {
         this.ratings.add(rating);
+        this.ratingSum.add(rating);
     }
 
 }
@@ -10,9 +10,9 @@ public class Show extends Video {
     private int numberOfSeasons;
     private ArrayList<Season> seasons;
 
-    private Integer totalDuration;
+    // The seasons never change, so their total duration is summed once
+    private final int totalDuration;
     private Double averageRating;
-    private Integer numberOfViews;
 
     /** Constructors */
     public Show(String title, int year, ArrayList<Actor> actors, ArrayList<String> genres,
@@ -20,6 +20,14 @@ public class Show extends Video {
         super(title, year, actors, genres);
         this.numberOfSeasons = numberOfSeasons;
         this.seasons = seasons;
+
+        int duration = 0;
+        if(seasons != null) {
+            for(Season season: seasons) {
+                duration += season.getDuration();
+            }
+        }
+        this.totalDuration = duration;
     }
 
     /** Getters */
@@ -45,7 +53,26 @@ public class Show extends Video {
         return averageRating;
     }
 
-    public Integer getTotalDuration() {
+    // True if at least one season has at least one rating
+    public boolean hasRatings() {
+        for(Season season: seasons) {
+            if(season.hasRatings()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Sum of the averages of the seasons, divided by the number of seasons
+    public double computeAverageRating() {
+        double ratingSum = 0.0;
+        for(Season season: seasons) {
+            ratingSum += season.getAverageRating();
+        }
+        return ratingSum / numberOfSeasons;
+    }
+
+    public int getTotalDuration() {
         return totalDuration;
     }
 
@@ -61,20 +88,9 @@ public class Show extends Video {
         return super.getGenres();
     }
 
-    public Integer getNumberOfViews() {
-        return numberOfViews;
-    }
-
     /** Setters */
     public void setAverageRating(double averageRating) {
         this.averageRating = averageRating;
     }
 
-    public void setTotalDuration(Integer totalDuration) {
-        this.totalDuration = totalDuration;
-    }
-
-    public void setNumberOfViews(Integer numberOfViews) {
-        this.numberOfViews = numberOfViews;
-    }
 }
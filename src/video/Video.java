@@ -1,17 +1,31 @@
 package video;
 
 import actor.Actor;
+import common.Constants;
+import utils.Utils;
+
 import java.util.ArrayList;
 
 public class Video {
 
     /** Attributes */
+    // Position of the movie among the movies (or of the show among the shows)
+    private int id = Constants.NO_ID;
     private String title;
+    // Position of the title in the sorted titles of all the videos; equal titles share it
+    private int titleRank;
     private int year;
     private ArrayList<Actor> actors;
     private ArrayList<String> genres;
+    // One bit for each genre (see Utils.genresToMask)
+    private int genreMask;
+    // True if a genre string has no bit, so the strings are compared instead
+    private boolean unknownGenre;
 
-    private Integer favoriteCount;
+    // Users with the video in their favorites, kept up to date by the favorite command
+    private int favoriteCount;
+    // Views of all the users, kept up to date by the view command
+    private int numberOfViews;
 
 
     /** Constructors */
@@ -23,13 +37,23 @@ public class Video {
         this.year = year;
         this.actors = actors;
         this.genres = genres;
+        this.genreMask = Utils.genresToMask(genres);
+        this.unknownGenre = Utils.hasUnknownGenre(genres);
     }
 
     /** Getters */
+    public int getId() {
+        return id;
+    }
+
     public String getTitle() {
         return title;
     }
 
+    public int getTitleRank() {
+        return titleRank;
+    }
+
     public ArrayList<Actor> getActors() {
         return actors;
     }
@@ -42,12 +66,49 @@ public class Video {
         return genres;
     }
 
-    public Integer getFavoriteCount() {
+    public int getGenreMask() {
+        return genreMask;
+    }
+
+    // True if the video has at least one of the genres of the mask
+    public boolean hasGenre(int mask) {
+        return (genreMask & mask) != 0;
+    }
+
+    public boolean hasUnknownGenre() {
+        return unknownGenre;
+    }
+
+    public int getFavoriteCount() {
         return favoriteCount;
     }
 
+    public int getNumberOfViews() {
+        return numberOfViews;
+    }
+
     /** Setters */
-    public void setFavoriteCount(Integer favoriteCount) {
+    public void setId(int id) {
+        this.id = id;
+    }
+
+    public void setTitleRank(int titleRank) {
+        this.titleRank = titleRank;
+    }
+
+    public void setFavoriteCount(int favoriteCount) {
         this.favoriteCount = favoriteCount;
     }
+
+    public void addFavorite() {
+        this.favoriteCount++;
+    }
+
+    public void setNumberOfViews(int numberOfViews) {
+        this.numberOfViews = numberOfViews;
+    }
+
+    public void addViews(int views) {
+        this.numberOfViews += views;
+    }
 }
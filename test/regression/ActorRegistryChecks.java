@@ -0,0 +1,78 @@
+package regression;
+
+import actor.Actor;
+import actor.ActorRegistry;
+import actor.ActorsAwards;
+import converters.ActorInputConverter;
+import converters.MovieInputConverter;
+import converters.ShowInputConverter;
+import converters.TitleIndex;
+import fileio.ActorInputData;
+import fileio.Input;
+import fileio.InputLoader;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * The actors of the casts are shared, but every entry of the actors list must
+ * stay its own actor
+ */
+final class ActorRegistryChecks {
+    /**
+     * for coding style
+     */
+    private ActorRegistryChecks() {
+    }
+
+    /**
+     * Lists the first actor of every input a second time, with other awards and
+     * description: each entry must stay its own actor, with its own data
+     * @return the number of failed inputs
+     */
+    static int check(final File[] inputDir) {
+        int failed = 0;
+        for (File input : inputDir) {
+            Input data = new InputLoader(input.getPath()).readData();
+            if (data.getActors().isEmpty()) {
+                continue;
+            }
+            List<ActorInputData> actorsData = new ArrayList<>(data.getActors());
+            ActorInputData first = actorsData.get(0);
+            Map<ActorsAwards, Integer> awards = new EnumMap<>(ActorsAwards.class);
+            awards.put(ActorsAwards.BEST_DIRECTOR, 1);
+            actorsData.add(new ActorInputData(first.getName(), "duplicate",
+                    first.getFilmography(), awards));
+
+            ActorRegistry actorRegistry = new ActorRegistry();
+            MovieInputConverter movieConverter = new MovieInputConverter();
+            movieConverter.convert(data.getMovies(), actorRegistry);
+            ShowInputConverter showConverter = new ShowInputConverter();
+            showConverter.convert(data.getSerials(), actorRegistry);
+            ActorInputConverter actorConverter = new ActorInputConverter();
+            actorConverter.convert(actorsData, new TitleIndex(movieConverter.getObjMovies(),
+                    showConverter.getObjShows()), actorRegistry);
+
+            List<Actor> actors = actorConverter.getObjActors();
+            for (int i = 0; i < actorsData.size(); ++i) {
+                ActorInputData actorData = actorsData.get(i);
+                Actor expected = new Actor(actorData.getName(), actorData.getCareerDescription(),
+                        null, null, actorData.getAwards());
+                Actor actor = actors.get(i);
+                if (actors.indexOf(actor) != i
+                        || !actor.getAwards().equals(expected.getAwards())
+                        || !Objects.equals(actor.getCareerDescription(),
+                                           expected.getCareerDescription())) {
+                    failed += Harness.report(input, "duplicate actors",
+                            "merged " + actor.getName());
+                    break;
+                }
+            }
+        }
+        return failed;
+    }
+}
@@ -0,0 +1,140 @@
+package regression;
+
+import actor.Actor;
+import actor.ActorRegistry;
+import actor.ActorsAwards;
+import converters.ActorInputConverter;
+import converters.MovieInputConverter;
+import converters.ShowInputConverter;
+import converters.TitleIndex;
+import converters.UserInputConverter;
+import entertainment.Season;
+import entities.Entities;
+import fileio.ActorInputData;
+import fileio.MovieInputData;
+import fileio.SerialInputData;
+import fileio.UserInputData;
+import user.User;
+import video.Movie;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The converters must resolve the titles of the input as the first converters did
+ */
+final class ConverterChecks {
+    private static final String TITLE = "Twice";
+    private static final int YEAR = 2000;
+    private static final int DURATION = 90;
+
+    /**
+     * for coding style
+     */
+    private ConverterChecks() {
+    }
+
+    /**
+     * @return the number of failed checks
+     */
+    static int check() {
+        return checkDuplicateTitles() + checkUnknownTitles();
+    }
+
+    /**
+     * Two movies and two shows share a title: the filmography of an actor listing
+     * it holds all four of them, in the order of the input
+     * @return the number of failed checks
+     */
+    private static int checkDuplicateTitles() {
+        List<MovieInputData> moviesData = new ArrayList<>();
+        List<SerialInputData> serialsData = new ArrayList<>();
+        for (int i = 0; i < 2; i++) {
+            moviesData.add(new MovieInputData(TITLE, new ArrayList<>(), new ArrayList<>(),
+                    YEAR + i, DURATION));
+            ArrayList<Season> seasons = new ArrayList<>();
+            seasons.add(new Season(1, DURATION));
+            serialsData.add(new SerialInputData(TITLE, new ArrayList<>(), new ArrayList<>(),
+                    1, seasons, YEAR + i));
+        }
+        ArrayList<String> filmography = new ArrayList<>();
+        filmography.add(TITLE);
+        List<ActorInputData> actorsData = new ArrayList<>();
+        actorsData.add(new ActorInputData("actor", "", filmography,
+                new EnumMap<>(ActorsAwards.class)));
+
+        ActorRegistry actorRegistry = new ActorRegistry();
+        MovieInputConverter movieConverter = new MovieInputConverter();
+        movieConverter.convert(moviesData, actorRegistry);
+        ShowInputConverter showConverter = new ShowInputConverter();
+        showConverter.convert(serialsData, actorRegistry);
+        TitleIndex titles = new TitleIndex(movieConverter.getObjMovies(),
+                showConverter.getObjShows());
+        ActorInputConverter actorConverter = new ActorInputConverter();
+        actorConverter.convert(actorsData, titles, actorRegistry);
+
+        int failed = 0;
+        Actor actor = actorConverter.getObjActors().get(0);
+        if (!actor.getMoviesPlayed().equals(movieConverter.getObjMovies())
+                || !actor.getShowsPlayed().equals(showConverter.getObjShows())) {
+            System.out.println("duplicate titles: the filmography holds "
+                    + actor.getMoviesPlayed().size() + " movies and "
+                    + actor.getShowsPlayed().size() + " shows instead of 2 and 2");
+            failed++;
+        }
+        // The users and the commands take the first video with the title
+        if (titles.getMovie(TITLE) != movieConverter.getObjMovies().get(0)
+                || titles.getShow(TITLE) != showConverter.getObjShows().get(0)) {
+            System.out.println("duplicate titles: the first video isn't the one looked up");
+            failed++;
+        }
+        return failed;
+    }
+
+    /**
+     * A user whose history and favorites name a video of the database and a title
+     * of no video: the unknown titles are skipped, and the database is still built
+     * @return the number of failed checks
+     */
+    private static int checkUnknownTitles() {
+        List<MovieInputData> moviesData = new ArrayList<>();
+        moviesData.add(new MovieInputData(TITLE, new ArrayList<>(), new ArrayList<>(),
+                YEAR, DURATION));
+        Map<String, Integer> history = new LinkedHashMap<>();
+        history.put(TITLE, 1);
+        history.put("unknown history", 2);
+        ArrayList<String> favorites = new ArrayList<>();
+        favorites.add(TITLE);
+        favorites.add("unknown favorite");
+        List<UserInputData> usersData = new ArrayList<>();
+        usersData.add(new UserInputData("user", "BASIC", history, favorites));
+
+        ActorRegistry actorRegistry = new ActorRegistry();
+        MovieInputConverter movieConverter = new MovieInputConverter();
+        movieConverter.convert(moviesData, actorRegistry);
+        List<Movie> movies = movieConverter.getObjMovies();
+        TitleIndex titles = new TitleIndex(movies, new ArrayList<>());
+        UserInputConverter userConverter = new UserInputConverter();
+        Entities entities;
+        try {
+            userConverter.convert(usersData, titles);
+            entities = new Entities(new ArrayList<>(), userConverter.getObjUsers(), movies,
+                    new ArrayList<>(), titles);
+        } catch (RuntimeException e) {
+            System.out.println("unknown titles: " + e);
+            return 1;
+        }
+
+        User user = entities.getUsers().get(0);
+        if (user.getMoviesHistory().size() != 1 || user.getShowsHistory().size() != 0
+                || !user.getMoviesFavorite().equals(movies)
+                || !user.getShowsFavorite().isEmpty()) {
+            System.out.println("unknown titles: the user kept a title of no video");
+            return 1;
+        }
+        return 0;
+    }
+}
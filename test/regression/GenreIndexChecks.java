@@ -0,0 +1,94 @@
+package regression;
+
+import entities.Entities;
+import entities.GenreIndex;
+import user.User;
+import video.Movie;
+import video.Show;
+import video.Video;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.ToIntFunction;
+
+/**
+ * The genre views and genre video lists must follow the view commands
+ */
+final class GenreIndexChecks {
+    /**
+     * for coding style
+     */
+    private GenreIndexChecks() {
+    }
+
+    /**
+     * The genres must be in the order the popular recommendation used to compute:
+     * a stable sort on the views summed from the histories, over a HashMap of the
+     * genre strings; every genre must list the videos that have it
+     * @param entities as the actions of the input left them
+     * @return 1 if the genre index is out of date, 0 otherwise
+     */
+    static int check(final File input, final Entities entities) {
+        List<Movie> movies = entities.getMovies();
+        List<Show> shows = entities.getShows();
+        List<User> users = entities.getUsers();
+        // The genres are put in the order they first appear, movies before shows:
+        // the iteration order of the map, and so the order of equal views, depends on it
+        Map<String, Integer> views = new HashMap<>();
+        for (Video video : movies) {
+            video.getGenres().forEach(genre -> views.putIfAbsent(genre, 0));
+        }
+        for (Video video : shows) {
+            video.getGenres().forEach(genre -> views.putIfAbsent(genre, 0));
+        }
+        addGenreViews(views, movies, movie -> users.stream()
+                .mapToInt(user -> user.getMoviesHistory().containsKey(movie.getId())
+                        ? user.getMoviesHistory().get(movie.getId()) : 0).sum());
+        addGenreViews(views, shows, show -> users.stream()
+                .mapToInt(user -> user.getShowsHistory().containsKey(show.getId())
+                        ? user.getShowsHistory().get(show.getId()) : 0).sum());
+        List<String> expected = new ArrayList<>(views.keySet());
+        expected.sort(Comparator.comparing(views::get, Comparator.reverseOrder()));
+
+        GenreIndex genreIndex = entities.getGenreIndex();
+        List<String> genres = new ArrayList<>();
+        for (int genre : genreIndex.getGenresByViews()) {
+            genres.add(genreIndex.getName(genre));
+            if (!genreIndex.getMovies(genre).equals(withGenre(movies, genreIndex.getName(genre)))
+                    || !genreIndex.getShows(genre)
+                    .equals(withGenre(shows, genreIndex.getName(genre)))) {
+                return Harness.report(input, "genres", "lists the wrong videos for "
+                        + genreIndex.getName(genre));
+            }
+        }
+        if (!genres.equals(expected)) {
+            return Harness.report(input, "genres", genres + " instead of " + expected);
+        }
+        return 0;
+    }
+
+    private static <T extends Video> void addGenreViews(final Map<String, Integer> views,
+                                                        final List<T> videos,
+                                                        final ToIntFunction<T> viewsOf) {
+        for (T video : videos) {
+            int videoViews = viewsOf.applyAsInt(video);
+            video.getGenres().stream().distinct()
+                    .forEach(genre -> views.merge(genre, videoViews, Integer::sum));
+        }
+    }
+
+    private static BitSet withGenre(final List<? extends Video> videos, final String genre) {
+        BitSet ids = new BitSet();
+        for (Video video : videos) {
+            if (video.getGenres().contains(genre)) {
+                ids.set(video.getId());
+            }
+        }
+        return ids;
+    }
+}
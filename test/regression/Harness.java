@@ -0,0 +1,118 @@
+package regression;
+
+import actions.ActionPipeline;
+import actions.JsonFileSink;
+import actions.ResultSink;
+import checker.Checker;
+import common.Constants;
+import entities.Entities;
+import fileio.Input;
+import fileio.InputSource;
+import fileio.StreamingInputLoader;
+import org.json.simple.JSONObject;
+import org.json.simple.parser.JSONParser;
+import org.json.simple.parser.ParseException;
+
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+
+/**
+ * Helpers shared by the checks: running an input as Main.action does, and
+ * comparing and reporting the outputs
+ */
+final class Harness {
+    /**
+     * for coding style
+     */
+    private Harness() {
+    }
+
+    private static final Checker CHECKER = new Checker();
+
+    /**
+     * Runs the actions of the input, as Main.action does
+     */
+    static void run(final File input, final File output,
+                    final String snapshot) throws IOException {
+        run(new StreamingInputLoader(input.getPath()), output, snapshot);
+    }
+
+    /**
+     * @return the entities as the actions left them
+     */
+    static Entities run(final InputSource inputLoader, final File output,
+                        final String snapshot) throws IOException {
+        ResultSink results = new JsonFileSink(output.getPath());
+
+        ActionPipeline pipeline = new ActionPipeline(results);
+        pipeline.run(inputLoader, snapshot);
+
+        results.close();
+        Entities entities = pipeline.getEntities();
+        pipeline.clear();
+        return entities;
+    }
+
+    static File reference(final File input) {
+        return new File(Constants.REF_PATH, "ref_" + input.getName());
+    }
+
+    /**
+     * @return 1 if the outputs differ, 0 otherwise
+     */
+    static int compare(final File input, final String check,
+                       final File output, final File expected) throws IOException {
+        if (CHECKER.compareQueries(CHECKER.createQueries(expected),
+                CHECKER.createQueries(output))) {
+            return 0;
+        }
+        return report(input, check, "differs from " + expected.getName());
+    }
+
+    /**
+     * @return 1, the number of failed checks
+     */
+    static int report(final File input, final String check, final String message) {
+        System.out.println(check + ": " + input.getName() + " " + message);
+        return 1;
+    }
+
+    static Object readJSON(final File input) throws IOException {
+        try (FileReader reader = new FileReader(input)) {
+            return new JSONParser().parse(reader);
+        } catch (ParseException e) {
+            throw new IOException(input.getName() + ": " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * @return the object, with the field set to the value
+     */
+    @SuppressWarnings("unchecked") // json-simple objects are raw maps
+    static JSONObject withField(final JSONObject object, final String name, final Object value) {
+        object.put(name, value);
+        return object;
+    }
+
+    /**
+     * @return the key of a JSON field, ready for its value
+     */
+    static String field(final String name) {
+        return "\"" + name + "\":";
+    }
+
+    /**
+     * @return the data read from an input, with the awards the actors do not print
+     */
+    static String describe(final Input input) {
+        StringBuilder description = new StringBuilder()
+                .append(input.getActors()).append(input.getUsers())
+                .append(input.getMovies()).append(input.getSerials())
+                .append(input.getCommands());
+        if (input.getActors() != null) {
+            input.getActors().forEach(actor -> description.append(actor.getAwards()));
+        }
+        return description.toString();
+    }
+}
@@ -0,0 +1,210 @@
+package regression;
+
+import common.Constants;
+import fileio.ActionInputData;
+import fileio.ActorInputData;
+import fileio.InputListener;
+import fileio.InputLoader;
+import fileio.InputSource;
+import fileio.MappedInputLoader;
+import fileio.MovieInputData;
+import fileio.ParallelInputLoader;
+import fileio.SerialInputData;
+import fileio.StreamingInputLoader;
+import fileio.UserInputData;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+/**
+ * The streaming, memory-mapped and parallel loaders must read the same data as
+ * the json-simple InputLoader
+ */
+final class LoaderChecks {
+    private static final int PARALLEL_THREADS = 4;
+    private static final long SMALL_CHUNK = 256;
+
+    /**
+     * for coding style
+     */
+    private LoaderChecks() {
+    }
+
+    /**
+     * Reads every input with each loader, which must give the same data as the
+     * InputLoader, and runs it with the memory-mapped and the parallel ones
+     * @return the number of failed checks
+     */
+    static int check(final File[] inputDir, final File outputDir) throws IOException {
+        int failed = 0;
+        for (File input : inputDir) {
+            failed += compareLoaders(input);
+
+            File fromMapped = new File(outputDir, "mapped_" + input.getName());
+            Harness.run(new MappedInputLoader(input.getPath()), fromMapped, null);
+            failed += Harness.compare(input, "mapped", fromMapped, Harness.reference(input));
+
+            File fromParallel = new File(outputDir, "parallel_" + input.getName());
+            Harness.run(new ParallelInputLoader(input.getPath(), PARALLEL_THREADS, 1),
+                    fromParallel, null);
+            failed += Harness.compare(input, "parallel", fromParallel,
+                    Harness.reference(input));
+        }
+        return failed + checkEscapes(outputDir) + checkMalformed(outputDir);
+    }
+
+    /**
+     * @return the number of loaders that read the input differently
+     */
+    private static int compareLoaders(final File input) throws IOException {
+        String expected = Harness.describe(new InputLoader(input.getPath()).readData());
+        int failed = 0;
+        if (!expected.equals(Harness.describe(
+                new StreamingInputLoader(input.getPath()).readData()))) {
+            failed += Harness.report(input, "streaming loader", "differs from the InputLoader");
+        }
+        if (!expected.equals(Harness.describe(
+                new MappedInputLoader(input.getPath()).readData()))) {
+            failed += Harness.report(input, "mapped loader", "differs from the InputLoader");
+        }
+        // One element for each task, a few elements for each task and one task for each section
+        for (long chunkBytes : new long[] {1, SMALL_CHUNK, Long.MAX_VALUE}) {
+            if (!expected.equals(Harness.describe(new ParallelInputLoader(input.getPath(),
+                    PARALLEL_THREADS, chunkBytes).readData()))) {
+                failed += Harness.report(input, "parallel loader (" + chunkBytes + " bytes)",
+                        "differs from the InputLoader");
+            }
+        }
+        return failed;
+    }
+
+    /**
+     * Strings with escapes the test inputs do not have: the unpaired surrogates
+     * are kept as they are, as json-simple does
+     * @return the number of loaders that read them differently
+     */
+    private static int checkEscapes(final File outputDir) throws IOException {
+        File input = new File(outputDir, "escapes.json");
+        String[] titles = {"\\uD83D\\n", "\\uD83D\\uDE00", "\\uDE00 alone",
+                           "\\uD83D\\uD83D", "\\u00e9\\t\\\"\\/", "\\uD83D"};
+        StringBuilder movies = new StringBuilder();
+        for (String title : titles) {
+            movies.append(movies.length() == 0 ? "" : ",")
+                    .append('{').append(Harness.field(Constants.NAME)).append('"').append(title)
+                    .append("\",").append(Harness.field(Constants.YEAR)).append("2000,")
+                    .append(Harness.field(Constants.DURATION)).append("90,")
+                    .append(Harness.field(Constants.GENRES)).append("[\"").append(title)
+                    .append("\"]}");
+        }
+        writeDatabase(input, "[]", "[]", "[" + movies + "]", "[]");
+        return compareLoaders(input);
+    }
+
+    /**
+     * Inputs every loader has to reject, and values the InputLoader cannot read
+     * but the tokenizers have to read alike
+     * @return the number of failed checks
+     */
+    private static int checkMalformed(final File outputDir) throws IOException {
+        String[][] rejected = {
+            {"comma_array", "[" + movie("\"a\"", "2000", "[\"x\" \"y\"]") + "]"},
+            {"comma_object", "[{" + Harness.field(Constants.NAME) + "\"a\" "
+                    + Harness.field(Constants.YEAR) + "2000}]"},
+            {"comma_elements", "[" + movie("\"a\"", "2000", "[]") + " "
+                    + movie("\"b\"", "2000", "[]") + "]"},
+            {"comma_trailing", "[" + movie("\"a\"", "2000", "[\"x\",]") + "]"},
+            {"int_overflow", "[" + movie("\"a\"", "2147483648", "[]") + "]"},
+            {"int_underflow", "[" + movie("\"a\"", "-2147483649", "[]") + "]"},
+            {"literal", "[" + movie("\"a\"", "2000", "[tru]") + "]"},
+        };
+        int failed = 0;
+        for (String[] malformed : rejected) {
+            File input = new File(outputDir, malformed[0] + ".json");
+            writeDatabase(input, "[]", "[]", malformed[1], "[]");
+            if (!rejects(new StreamingInputLoader(input.getPath()))) {
+                failed += Harness.report(input, "streaming loader", "accepted malformed input");
+            }
+            if (!rejects(new MappedInputLoader(input.getPath()))) {
+                failed += Harness.report(input, "mapped loader", "accepted malformed input");
+            }
+            if (!rejects(new ParallelInputLoader(input.getPath(), PARALLEL_THREADS, 1))) {
+                failed += Harness.report(input, "parallel loader", "accepted malformed input");
+            }
+        }
+
+        File input = new File(outputDir, "literals.json");
+        writeDatabase(input, "[]", "[]", "[" + movie("true", "-2147483648",
+                "[true,false,null,\"x\"]") + "," + movie("false", "\"2147483647\"",
+                "[[\"nested\"],{\"a\":1}]") + "]", "[]");
+        String streamed = Harness.describe(new StreamingInputLoader(input.getPath()).readData());
+        if (!streamed.equals(Harness.describe(new MappedInputLoader(input.getPath()).readData()))
+                || !streamed.contains("[true, false, null, x]")
+                || !streamed.contains("2147483647")) {
+            failed += Harness.report(input, "loaders", "read the literals differently");
+        }
+        return failed;
+    }
+
+    /**
+     * @return a movie object with the given raw JSON values
+     */
+    private static String movie(final String name, final String year, final String genres) {
+        return "{" + Harness.field(Constants.NAME) + name + ","
+                + Harness.field(Constants.YEAR) + year + ","
+                + Harness.field(Constants.DURATION) + "90,"
+                + Harness.field(Constants.GENRES) + genres + "}";
+    }
+
+    /**
+     * @return true if the loader fails to read its input
+     */
+    private static boolean rejects(final InputSource loader) {
+        try {
+            loader.stream(new IgnoredInput());
+            return false;
+        } catch (IOException | RuntimeException e) {
+            return true;
+        }
+    }
+
+    /**
+     * Writes an input with the given sections and no actions
+     */
+    static void writeDatabase(final File input, final String actors, final String users,
+                              final String movies, final String shows) throws IOException {
+        String json = "{" + Harness.field(Constants.DATABASE) + "{"
+                + Harness.field(Constants.ACTORS) + actors + ","
+                + Harness.field(Constants.USERS) + users + ","
+                + Harness.field(Constants.MOVIES) + movies + ","
+                + Harness.field(Constants.SHOWS) + shows + "},"
+                + Harness.field(Constants.ACTIONS) + "[]}";
+        Files.write(input.toPath(), json.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    /**
+     * Drops everything it receives
+     */
+    private static final class IgnoredInput implements InputListener {
+        @Override
+        public void onActor(final ActorInputData actor) {
+        }
+
+        @Override
+        public void onUser(final UserInputData user) {
+        }
+
+        @Override
+        public void onMovie(final MovieInputData movie) {
+        }
+
+        @Override
+        public void onSerial(final SerialInputData serial) {
+        }
+
+        @Override
+        public void onAction(final ActionInputData action) {
+        }
+    }
+}
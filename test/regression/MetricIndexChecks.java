@@ -0,0 +1,78 @@
+package regression;
+
+import entities.Entities;
+import entities.MetricIndex;
+import entities.VideoIndexes;
+import video.Video;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+/**
+ * The ordered indexes of the videos must follow the values the commands changed
+ */
+final class MetricIndexChecks {
+    /**
+     * for coding style
+     */
+    private MetricIndexChecks() {
+    }
+
+    /**
+     * @param entities as the actions of the input left them
+     * @return the number of out of date indexes
+     */
+    static int check(final File input, final Entities entities) {
+        return checkMetrics(input, "movies", entities.getMovies(), entities.getMovieIndexes())
+                + checkMetrics(input, "shows", entities.getShows(), entities.getShowIndexes());
+    }
+
+    private static <T extends Video> int checkMetrics(final File input, final String object,
+                                                      final List<T> videos,
+                                                      final VideoIndexes<T> indexes) {
+        int failed = 0;
+        failed += checkMetric(input, object + " by duration", videos, indexes.getByDuration(),
+                false);
+        failed += checkMetric(input, object + " by rating", videos, indexes.getByRating(), true);
+        failed += checkMetric(input, object + " by views", videos, indexes.getByViews(), false);
+        failed += checkMetric(input, object + " by favorites", videos, indexes.getByFavorites(),
+                false);
+        return failed;
+    }
+
+    /**
+     * The first videos of the index must be the ones of a sort by title followed
+     * by a stable sort by the current value, in both orders
+     * @return 1 if the index is out of date, 0 otherwise
+     */
+    private static <T extends Video> int checkMetric(final File input, final String check,
+                                                     final List<T> videos,
+                                                     final MetricIndex<T> index,
+                                                     final boolean skipZero) {
+        Predicate<T> even = video -> video.getId() % 2 == 0;
+        for (boolean descending : new boolean[]{false, true}) {
+            Comparator<T> byTitle = Comparator.comparing(Video::getTitle);
+            Comparator<T> byValue = Comparator.comparingDouble(index::valueOf);
+            List<T> sorted = new ArrayList<>(videos);
+            sorted.removeIf(video -> skipZero && index.valueOf(video) == 0.0);
+            sorted.sort(descending ? byTitle.reversed() : byTitle);
+            sorted.sort(descending ? byValue.reversed() : byValue);
+            List<T> filtered = sorted.stream().filter(even).collect(Collectors.toList());
+
+            int number = (sorted.size() + 1) / 2;
+            if (!index.first(descending, video -> true, sorted.size() + 1).equals(sorted)
+                    || !index.first(descending, video -> true, number)
+                    .equals(sorted.subList(0, number))
+                    || !index.first(descending, even, number)
+                    .equals(filtered.subList(0, Math.min(number, filtered.size())))) {
+                return Harness.report(input, check, "differs from a sort of the "
+                        + (descending ? "descending" : "ascending") + " values");
+            }
+        }
+        return 0;
+    }
+}
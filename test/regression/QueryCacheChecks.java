@@ -0,0 +1,110 @@
+package regression;
+
+import common.Constants;
+import entities.QueryCache;
+import fileio.StreamingInputLoader;
+import org.json.simple.JSONArray;
+import org.json.simple.JSONObject;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The cached query results must be dropped when a command changes their data
+ */
+final class QueryCacheChecks {
+    /**
+     * for coding style
+     */
+    private QueryCacheChecks() {
+    }
+
+    /**
+     * Asks every query of an input again after all the actions, when the results
+     * cached along the way may be out of date, and compares them with the same
+     * queries asked after the commands alone, when none of them is cached yet
+     * @return the number of failed checks
+     */
+    static int check(final File[] inputDir, final File outputDir) throws IOException {
+        int failed = checkVersions();
+        for (File input : inputDir) {
+            JSONObject json = (JSONObject) Harness.readJSON(input);
+            List<JSONObject> actions = new ArrayList<>();
+            List<JSONObject> commands = new ArrayList<>();
+            List<JSONObject> queries = new ArrayList<>();
+            for (Object element : (JSONArray) json.get(Constants.ACTIONS)) {
+                JSONObject action = (JSONObject) element;
+                actions.add(action);
+                Object actionType = action.get(Constants.ACTION_TYPE);
+                if (Constants.COMMAND.equals(actionType)) {
+                    commands.add(action);
+                } else if (Constants.QUERY.equals(actionType)) {
+                    queries.add(action);
+                }
+            }
+            if (queries.isEmpty() || commands.isEmpty()) {
+                continue;
+            }
+
+            File cached = new File(outputDir, "cached_" + input.getName());
+            File fresh = new File(outputDir, "fresh_" + input.getName());
+            List<Object> cachedResults = replay(input, json, actions, queries, cached, outputDir);
+            List<Object> freshResults = replay(input, json, commands, queries, fresh, outputDir);
+            if (!cachedResults.equals(freshResults)) {
+                failed += Harness.report(input, "query cache", "gives out of date results");
+            }
+        }
+        return failed;
+    }
+
+    /**
+     * Runs the actions followed by the queries
+     * @return the results of the queries
+     */
+    private static List<Object> replay(final File input, final JSONObject json,
+                                       final List<JSONObject> actions,
+                                       final List<JSONObject> queries,
+                                       final File output, final File outputDir)
+            throws IOException {
+        List<JSONObject> replayed = new ArrayList<>(actions);
+        replayed.addAll(queries);
+        File replayInput = new File(outputDir, "replay_" + input.getName());
+        try (FileWriter writer = new FileWriter(replayInput)) {
+            Harness.withField(json, Constants.ACTIONS, replayed).writeJSONString(writer);
+        }
+
+        Harness.run(new StreamingInputLoader(replayInput.getPath()), output, null);
+        JSONArray results = (JSONArray) Harness.readJSON(output);
+        List<Object> queryResults = new ArrayList<>();
+        for (Object result : results.subList(actions.size(), results.size())) {
+            queryResults.add(((JSONObject) result).get(Constants.MESSAGE));
+        }
+        return queryResults;
+    }
+
+    /**
+     * A result is only given back at the version of the change it depends on
+     * @return 1 if the cache gives back an out of date result, 0 otherwise
+     */
+    private static int checkVersions() {
+        QueryCache cache = new QueryCache();
+        cache.put("views", "views", QueryCache.Change.VIEWS);
+        cache.put("always", "always", null);
+        boolean valid = "views".equals(cache.get("views"));
+        cache.bump(QueryCache.Change.RATINGS);
+        cache.bump(QueryCache.Change.FAVORITES);
+        valid &= "views".equals(cache.get("views"));
+        cache.bump(QueryCache.Change.VIEWS);
+        valid &= cache.get("views") == null && "always".equals(cache.get("always"));
+        cache.put("views", "views again", QueryCache.Change.VIEWS);
+        valid &= "views again".equals(cache.get("views"));
+        if (valid) {
+            return 0;
+        }
+        System.out.println("query cache: a result is given back at the wrong version");
+        return 1;
+    }
+}
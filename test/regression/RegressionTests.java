@@ -0,0 +1,76 @@
+package regression;
+
+import common.Constants;
+import entities.Entities;
+import fileio.StreamingInputLoader;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+
+/**
+ * Runs the checks of the optimizations on every input of the tests directory:
+ * the outputs must stay the same as the reference files, and the indexes the
+ * commands keep up to date the same as the ones computed again.
+ * The outputs are written to a temporary directory, not to the results.
+ */
+public final class RegressionTests {
+    /**
+     * for coding style
+     */
+    private RegressionTests() {
+    }
+
+    /**
+     * @param args unused
+     * @throws IOException in case of exceptions to reading / writing
+     */
+    public static void main(final String[] args) throws IOException {
+        File[] inputDir = new File(Constants.TESTS_PATH).listFiles();
+        if (inputDir == null) {
+            return;
+        }
+        Arrays.sort(inputDir);
+        File outputDir = Files.createTempDirectory("regression").toFile();
+
+        int failed = LoaderChecks.check(inputDir, outputDir);
+        failed += SnapshotChecks.check(inputDir, outputDir);
+        failed += ActorRegistryChecks.check(inputDir);
+        failed += ConverterChecks.check();
+        failed += TopKChecks.check();
+        failed += checkIndexes(inputDir, outputDir);
+        failed += SeenChecks.checkViewsAfterBuild();
+        failed += QueryCacheChecks.check(inputDir, outputDir);
+
+        System.out.println("-----------------------------");
+        System.out.println(failed == 0 ? "REGRESSION PASSED" : "REGRESSION FAILED: " + failed);
+        if (failed != 0) {
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Runs every input: its output must be the reference one, and the indexes
+     * the commands kept up to date the same as the ones computed again from
+     * the entities
+     * @return the number of failed checks
+     */
+    private static int checkIndexes(final File[] inputDir,
+                                    final File outputDir) throws IOException {
+        int failed = 0;
+        for (File input : inputDir) {
+            File output = new File(outputDir, "indexes_" + input.getName());
+            Entities entities = Harness.run(new StreamingInputLoader(input.getPath()),
+                    output, null);
+            failed += Harness.compare(input, "output", output, Harness.reference(input));
+            if (entities == null) {
+                continue;
+            }
+            failed += MetricIndexChecks.check(input, entities);
+            failed += GenreIndexChecks.check(input, entities);
+            failed += SeenChecks.check(input, entities);
+        }
+        return failed;
+    }
+}
@@ -0,0 +1,81 @@
+package regression;
+
+import entities.Entities;
+import user.User;
+import utils.IntDoubleMap;
+import utils.IntIntMap;
+import video.Movie;
+import video.Season;
+import video.Show;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * The videos a user has seen must follow the view commands
+ */
+final class SeenChecks {
+    /**
+     * for coding style
+     */
+    private SeenChecks() {
+    }
+
+    /**
+     * The videos a user has seen must be the ones in the history
+     * @param entities as the actions of the input left them
+     * @return 1 if a user has out of date bitsets, 0 otherwise
+     */
+    static int check(final File input, final Entities entities) {
+        for (User user : entities.getUsers()) {
+            if (!user.getMoviesSeen().equals(keys(user.getMoviesHistory()))
+                    || !user.getShowsSeen().equals(keys(user.getShowsHistory()))) {
+                return Harness.report(input, "seen", user.getUsername()
+                        + " has seen other videos than the history");
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * The bitsets are only built by the first recommendation that needs them: the
+     * views that follow must still be added to them
+     * @return 1 if a view is missing from the bitsets, 0 otherwise
+     */
+    static int checkViewsAfterBuild() {
+        List<Movie> movies = new ArrayList<>();
+        movies.add(new Movie("movie", 2000, 90, new ArrayList<>(), new ArrayList<>()));
+        ArrayList<Season> seasons = new ArrayList<>();
+        seasons.add(new Season(1, 90, new ArrayList<>()));
+        List<Show> shows = new ArrayList<>();
+        shows.add(new Show("show", 2000, new ArrayList<>(), new ArrayList<>(), 1, seasons));
+        List<User> users = new ArrayList<>();
+        users.add(new User("user", "BASIC", new IntIntMap(), new IntIntMap(),
+                new ArrayList<>(), new ArrayList<>(), new IntDoubleMap(), new IntDoubleMap()));
+        // Gives the videos their ids
+        new Entities(new ArrayList<>(), users, movies, shows);
+
+        User user = users.get(0);
+        user.getMoviesSeen();
+        user.getShowsSeen();
+        user.addView(movies.get(0));
+        user.addView(shows.get(0));
+        if (!user.getMoviesSeen().equals(keys(user.getMoviesHistory()))
+                || !user.getShowsSeen().equals(keys(user.getShowsHistory()))
+                || !user.hasViewed(movies.get(0)) || !user.hasViewed(shows.get(0))) {
+            System.out.println("seen: a view after the bitsets were built is missing");
+            return 1;
+        }
+        return 0;
+    }
+
+    private static BitSet keys(final IntIntMap history) {
+        BitSet keys = new BitSet();
+        for (int key : history.keys()) {
+            keys.set(key);
+        }
+        return keys;
+    }
+}
@@ -0,0 +1,96 @@
+package regression;
+
+import common.Constants;
+import entities.EntitiesSnapshot;
+import entities.SnapshotSource;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * A run from the snapshot of the database must give the same output as the
+ * run that converted it from the JSON, and a snapshot must not be reused once
+ * its input changed
+ */
+final class SnapshotChecks {
+    /**
+     * for coding style
+     */
+    private SnapshotChecks() {
+    }
+
+    /**
+     * Runs every input twice: the first run converts the database from the JSON
+     * and writes its snapshot, the second one loads the snapshot instead
+     * @return the number of failed inputs
+     */
+    static int check(final File[] inputDir, final File outputDir) throws IOException {
+        int failed = 0;
+        for (File input : inputDir) {
+            String snapshot = new File(outputDir, input.getName()
+                    + Constants.SNAPSHOT_EXTENSION).getPath();
+            File fromJson = new File(outputDir, "json_" + input.getName());
+            File fromSnapshot = new File(outputDir, "snapshot_" + input.getName());
+
+            Harness.run(input, fromJson, snapshot);
+            if (!new File(snapshot).isFile()) {
+                failed += Harness.report(input, "snapshot", "no snapshot was written");
+                continue;
+            }
+            Harness.run(input, fromSnapshot, snapshot);
+            failed += Harness.compare(input, "snapshot", fromSnapshot, fromJson);
+        }
+        return failed + checkStale(inputDir[0], outputDir);
+    }
+
+    /**
+     * Changes a copy of the input after its snapshot was written, keeping its
+     * modification time: the snapshot must be out of date for every change
+     * @return the number of failed checks
+     */
+    private static int checkStale(final File input, final File outputDir) throws IOException {
+        File copy = new File(outputDir, "stale_" + input.getName());
+        File other = new File(outputDir, "stale_other_" + input.getName());
+        String snapshot = copy.getPath() + Constants.SNAPSHOT_EXTENSION;
+        Files.copy(input.toPath(), copy.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        Files.copy(input.toPath(), other.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        long lastModified = copy.lastModified();
+
+        int failed = 0;
+        Harness.run(copy, new File(outputDir, "stale_json_" + input.getName()), snapshot);
+        if (!isUpToDate(snapshot, copy)) {
+            failed += Harness.report(copy, "snapshot", "not up to date after it was written");
+        }
+
+        // The same size and time, one byte changed
+        byte[] content = Files.readAllBytes(copy.toPath());
+        content[content.length - 1] = (byte) ' ';
+        Files.write(copy.toPath(), content);
+        copy.setLastModified(lastModified);
+        if (isUpToDate(snapshot, copy)) {
+            failed += Harness.report(copy, "snapshot", "reused after the input was changed");
+        }
+
+        // Another file moved over the input, with an older time
+        Files.write(other.toPath(), new byte[] {'{', '}'});
+        other.setLastModified(lastModified - 1);
+        Files.move(other.toPath(), copy.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        if (isUpToDate(snapshot, copy)) {
+            failed += Harness.report(copy, "snapshot", "reused after the input was replaced");
+        }
+
+        // The snapshot is written under a temporary name, which must not be left over
+        File[] temporary = outputDir.listFiles((directory, name) -> name.endsWith(".tmp"));
+        if (temporary != null && temporary.length > 0) {
+            failed += Harness.report(copy, "snapshot", "left a temporary file");
+        }
+        return failed;
+    }
+
+    private static boolean isUpToDate(final String snapshot, final File input)
+            throws IOException {
+        return EntitiesSnapshot.isUpToDate(snapshot, SnapshotSource.of(input.getAbsolutePath()));
+    }
+}
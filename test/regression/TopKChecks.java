@@ -0,0 +1,61 @@
+package regression;
+
+import utils.TopK;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+/**
+ * The bounded top-k selection must give the first elements of a stable sort
+ */
+final class TopKChecks {
+    /**
+     * for coding style
+     */
+    private TopKChecks() {
+    }
+
+    private static final long RANDOM_SEED = 42;
+    private static final int ROUNDS = 2000;
+    private static final int MAX_SIZE = 200;
+
+    /**
+     * Selects from random lists with many equal values, with and without a
+     * filter, in both orders
+     * @return the number of failed selections
+     */
+    static int check() {
+        Random random = new Random(RANDOM_SEED);
+        Comparator<int[]> order = Comparator.comparingInt(element -> element[0]);
+        Predicate<int[]> even = element -> element[1] % 2 == 0;
+        int failed = 0;
+        for (int round = 0; round < ROUNDS; ++round) {
+            int size = random.nextInt(MAX_SIZE);
+            int numberOfValues = 1 + random.nextInt(size + 1);
+            List<int[]> elements = new ArrayList<>(size);
+            for (int i = 0; i < size; ++i) {
+                elements.add(new int[]{random.nextInt(numberOfValues), i});
+            }
+            int k = random.nextInt(size + 2);
+
+            for (Comparator<int[]> comparator : List.of(order, order.reversed())) {
+                List<int[]> sorted = new ArrayList<>(elements);
+                sorted.sort(comparator);
+                List<int[]> filtered = sorted.stream().filter(even).collect(Collectors.toList());
+                if (!TopK.select(elements, comparator, k)
+                        .equals(sorted.subList(0, Math.min(k, size)))
+                        || !TopK.select(elements, even, comparator, k)
+                        .equals(filtered.subList(0, Math.min(k, filtered.size())))) {
+                    System.out.println("top k: size " + size + ", k " + k
+                            + " differs from a stable sort");
+                    failed++;
+                }
+            }
+        }
+        return failed;
+    }
+}